@@ -0,0 +1,71 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the gzip compression done once when {@link FeedCache} stores a newly rendered feed.
+ *
+ * @author  AO Industries, Inc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedCompressionBenchmark {
+
+  @Param({"10", "100", "10000"})
+  public int newsCount;
+
+  private byte[] bytes;
+
+  @Setup
+  public void setup() throws ServletException, IOException {
+    bytes = new SyntheticFeed(newsCount, FeedFormat.RSS).render();
+  }
+
+  /**
+   * Compressing a newly rendered feed.
+   */
+  @Benchmark
+  public byte[] gzip() {
+    return FeedCache.gzip(bytes);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Minimal servlet request and response objects for benchmarking, without any mocking library.
+ * Only the methods used while writing feeds return meaningful values.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class MockServlet {
+
+  /** Make no instances. */
+  private MockServlet() {
+    throw new AssertionError();
+  }
+
+  static final String SCHEME = "https";
+
+  static final String SERVER_NAME = "semanticcms.example.com";
+
+  static final int SERVER_PORT = 443;
+
+  static final String CONTEXT_PATH = "";
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    if (type.isPrimitive() && type != void.class) {
+      throw new UnsupportedOperationException("Unexpected primitive type: " + type);
+    }
+    return null;
+  }
+
+  /**
+   * Creates a GET request with the given headers.
+   */
+  static HttpServletRequest newRequest(String servletPath, Map<String, String> headers) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "getMethod":
+          return "GET";
+        case "getScheme":
+          return SCHEME;
+        case "isSecure":
+          return "https".equals(SCHEME);
+        case "getServerName":
+          return SERVER_NAME;
+        case "getServerPort":
+          return SERVER_PORT;
+        case "getContextPath":
+          return CONTEXT_PATH;
+        case "getServletPath":
+          return servletPath;
+        case "getHeader":
+          return headers.get((String) args[0]);
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "MockServlet.Request(" + servletPath + ")";
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    };
+    return (HttpServletRequest) Proxy.newProxyInstance(
+        MockServlet.class.getClassLoader(),
+        new Class<?>[] {HttpServletRequest.class},
+        handler
+    );
+  }
+
+  /**
+   * Creates a response that does not change URLs when encoding them.
+   */
+  static HttpServletResponse newResponse() {
+    InvocationHandler handler = (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "encodeURL":
+        case "encodeRedirectURL":
+          return args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "MockServlet.Response";
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    };
+    return (HttpServletResponse) Proxy.newProxyInstance(
+        MockServlet.class.getClassLoader(),
+        new Class<?>[] {HttpServletResponse.class},
+        handler
+    );
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import static com.aoapps.encoding.TextInXhtmlEncoder.textInXhtmlEncoder;
+
+import com.aoapps.encoding.EncodingContext;
+import com.aoapps.encoding.TextWriter;
+import com.aoapps.encoding.XhtmlWriter;
+import com.semanticcms.core.model.Book;
+import jakarta.servlet.ServletException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A synthetic feed with the given number of news, built into the same {@link FeedChannel} model as
+ * {@link RssServlet} and written by the same {@link FeedFormat}.
+ *
+ * <p>Capturing real pages requires a servlet container with SemanticCMS deployed, so the items are built directly,
+ * as if already in the {@link ItemCache}.  Their bodies are rendered HTML of a typical size, doubly encoded just
+ * like captured bodies.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class SyntheticFeed {
+
+  /**
+   * The path prefix of the synthetic book.
+   */
+  private static final String BOOK_PATH_PREFIX = "/synthetic";
+
+  /**
+   * The synthetic book, without any RSS parameters so the defaults apply.
+   */
+  private static final Book BOOK;
+
+  static {
+    Properties bookProps = new Properties();
+    bookProps.setProperty("content.root", "/index.jspx");
+    bookProps.setProperty("title", "Synthetic Book");
+    BOOK = new Book(BOOK_PATH_PREFIX, "auto", false, Collections.emptySet(), bookProps);
+  }
+
+  /**
+   * The number of news per synthetic page, so some items have a source.
+   */
+  private static final int NEWS_PER_PAGE = 4;
+
+  private static final String BODY_HTML;
+
+  static {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 8; i++) {
+      body.append("<p>Paragraph ").append(i)
+          .append(" with <a href=\"/synthetic/other-page.jspx#section-").append(i)
+          .append("\">a link &amp; some \"quoted\" text</a> and enough content to be representative of a news body.</p>\n");
+    }
+    BODY_HTML = body.toString();
+  }
+
+  /**
+   * Gets the path of the feed of a synthetic page in the given format.
+   */
+  private static String getFeedPath(String pageName, FeedFormat format) {
+    return BOOK_PATH_PREFIX + '/' + pageName + format.getExtension();
+  }
+
+  /**
+   * Encodes the content of an item, doubly encoded as done for captured bodies.
+   */
+  private static String encodeContent(String description) throws IOException {
+    StringWriter contentOut = new StringWriter();
+    try (XhtmlWriter encoder = new TextWriter(EncodingContext.XML, textInXhtmlEncoder, contentOut).xhtml()) {
+      encoder.append("                <div><em>").text(description).append("</em></div>\n");
+      encoder.append("                <div style=\"margin-top: 1em\">\n");
+      encoder.append(BODY_HTML);
+      encoder.append("                </div>\n");
+    }
+    return contentOut.toString();
+  }
+
+  private final FeedFormat format;
+  private final FeedChannel channel;
+
+  SyntheticFeed(int size, FeedFormat format) throws ServletException, IOException {
+    this.format = format;
+    String feedPath = getFeedPath("index", format);
+    FeedWriter feedWriter = new FeedWriter(
+        MockServlet.newRequest(feedPath, Collections.emptyMap()),
+        MockServlet.newResponse(),
+        true
+    );
+    Instant newest = Instant.parse("2026-01-01T00:00:00Z");
+    List<FeedChannel.Entry> entries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int pageNum = i / NEWS_PER_PAGE;
+      String pageServletPath = BOOK_PATH_PREFIX + "/page-" + pageNum + ".jspx";
+      String id = "news-" + i;
+      String description = "Description of synthetic news " + i + " <with> characters to encode";
+      FeedItem item = new FeedItem(
+          "Synthetic News " + i + " & Friends",
+          feedWriter.getUrl(pageServletPath, null, id),
+          description,
+          encodeContent(description),
+          feedWriter.getUrl(pageServletPath, null, id),
+          newest.minus(i, ChronoUnit.HOURS)
+      );
+      // The news of the first page are on the page of the feed
+      entries.add(
+          pageNum == 0
+              ? new FeedChannel.Entry(item, null, null)
+              : new FeedChannel.Entry(item, feedWriter.getUrl(getFeedPath("page-" + pageNum, format), null, null), "Synthetic Page " + pageNum)
+      );
+    }
+    channel = new FeedChannel(
+        ChannelConfig.of(BOOK),
+        "Synthetic Book",
+        feedWriter.getUrl(BOOK_PATH_PREFIX + "/index.jspx", null, null),
+        feedWriter.getUrl(feedPath, null, null),
+        null,
+        "The news of a synthetic book & its pages",
+        "Copyright 2026 Synthetic Authors",
+        size == 0 ? null : newest,
+        null,
+        false,
+        null,
+        null,
+        null,
+        Collections.unmodifiableList(entries)
+    );
+  }
+
+  /**
+   * Writes the entire feed into its encoded bytes, as done by {@link RssServlet} for each render.
+   */
+  byte[] render() throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (PrintWriter out = new PrintWriter(new OutputStreamWriter(buffer, RssServlet.ENCODING))) {
+      format.write(channel, out);
+    }
+    return buffer.toByteArray();
+  }
+}
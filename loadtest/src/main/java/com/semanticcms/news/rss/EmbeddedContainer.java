@@ -0,0 +1,125 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.rss;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+
+/**
+ * An embedded Tomcat on localhost with {@link RssServlet} deployed over a {@link SyntheticBook}, all within a
+ * temporary directory that is removed when closed.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class EmbeddedContainer implements AutoCloseable {
+
+  private final Path baseDir;
+  private final SyntheticBook book;
+  private final Tomcat tomcat;
+  private final Context context;
+  private final String baseUrl;
+
+  /**
+   * Writes the book and starts the container.
+   *
+   * @param  maxThreads  the request processing threads of the container
+   * @param  initParams  the context init parameters
+   */
+  EmbeddedContainer(int feeds, int pagesPerFeed, int newsPerPage, int maxThreads, Map<String, String> initParams)
+      throws IOException, LifecycleException {
+    baseDir = Files.createTempDirectory("semanticcms-news-rss-loadtest-");
+    try {
+      Path docBase = baseDir.resolve("webapp");
+      book = new SyntheticBook(docBase, feeds, pagesPerFeed, newsPerPage);
+      book.write();
+
+      tomcat = new Tomcat();
+      tomcat.setBaseDir(baseDir.resolve("tomcat").toString());
+      tomcat.setHostname("localhost");
+      tomcat.setPort(0);
+      Connector connector = tomcat.getConnector();
+      connector.setProperty("address", "localhost");
+      connector.setProperty("maxThreads", Integer.toString(maxThreads));
+      context = tomcat.addWebapp("", docBase.toString());
+      initParams.forEach(context::addParameter);
+      tomcat.start();
+      baseUrl = "http://localhost:" + connector.getLocalPort();
+    } catch (IOException | LifecycleException | RuntimeException e) {
+      try {
+        delete(baseDir);
+      } catch (IOException e2) {
+        e.addSuppressed(e2);
+      }
+      throw e;
+    }
+  }
+
+  SyntheticBook getBook() {
+    return book;
+  }
+
+  /**
+   * Gets the URL of the context root, without any trailing slash.
+   */
+  String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * Gets the metrics of the servlet.
+   *
+   * @return  the metrics or {@code null} when the servlet has not been initialized
+   */
+  RssMetrics getMetrics() {
+    return RssMetrics.APPLICATION_ATTRIBUTE.context(context.getServletContext()).get();
+  }
+
+  /**
+   * Stops the container and removes its directory.
+   */
+  @Override
+  public void close() throws IOException, LifecycleException {
+    try {
+      tomcat.stop();
+      tomcat.destroy();
+    } finally {
+      delete(baseDir);
+    }
+  }
+
+  private static void delete(Path dir) throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+}
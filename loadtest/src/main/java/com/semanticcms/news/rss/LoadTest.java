@@ -0,0 +1,216 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deploys {@link RssServlet} with a {@link SyntheticBook} into an embedded Tomcat on localhost, then replays a
+ * {@link PollingPattern} of feed readers against it over HTTP.
+ *
+ * <p>Reports throughput, latency percentiles, and status counts for the cold first request of each feed, every
+ * simulated hour, and overall, followed by the metrics of the servlet itself.  Unlike the JMH benchmarks, this
+ * includes the container: connection handling, request thread saturation, and conditional requests.</p>
+ *
+ * <p>The load generator runs in the same JVM as the container, so leave it enough cores or the numbers will
+ * reflect contention with the generator.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class LoadTest {
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+  /**
+   * Runs the load test.
+   *
+   * @param  args  the <code>name=value</code> arguments of the {@link PollingPattern}
+   */
+  public static void main(String[] args) throws Exception {
+    PollingPattern pattern;
+    try {
+      pattern = PollingPattern.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(PollingPattern.USAGE);
+      System.exit(1);
+      return;
+    }
+    try (EmbeddedContainer container = new EmbeddedContainer(
+        pattern.feeds, pattern.pagesPerFeed, pattern.newsPerPage, pattern.maxThreads, pattern.initParams
+    )) {
+      new LoadTest(pattern, container.getBook(), container.getBaseUrl()).run(System.out);
+      RssMetrics metrics = container.getMetrics();
+      if (metrics != null) {
+        printMetrics(metrics, System.out);
+      }
+    }
+  }
+
+  private static void printMetrics(RssMetrics metrics, PrintStream out) {
+    out.println("Servlet:");
+    out.println("  requests " + metrics.getRequests()
+        + ", not modified " + metrics.getNotModified()
+        + ", not found " + metrics.getNotFound()
+        + ", errors " + metrics.getErrors()
+        + ", async rejected " + metrics.getAsyncRejected()
+        + ", throttled " + metrics.getThrottled());
+    out.println("  feeds rendered " + metrics.getFeedsRendered()
+        + ", feed cache hits " + metrics.getFeedCacheHits()
+        + ", misses " + metrics.getFeedCacheMisses()
+        + ", coalesced " + metrics.getCoalesced()
+        + ", stale served " + metrics.getStaleServed());
+    out.println("  item cache hits " + metrics.getItemCacheHits()
+        + ", misses " + metrics.getItemCacheMisses());
+    out.println("  request time: " + metrics.getRequestTime());
+    out.println("  find news time: " + metrics.getFindNewsTime());
+    out.println("  body capture time: " + metrics.getBodyCaptureTime());
+    out.println("  serialization time: " + metrics.getSerializationTime());
+  }
+
+  private final PollingPattern pattern;
+  private final SyntheticBook book;
+  private final String baseUrl;
+  private final Random random;
+  private final HttpClient client;
+  private final Semaphore inFlight;
+
+  private LoadTest(PollingPattern pattern, SyntheticBook book, String baseUrl) {
+    this.pattern = pattern;
+    this.book = book;
+    this.baseUrl = baseUrl;
+    this.random = new Random(pattern.seed);
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    this.inFlight = new Semaphore(pattern.concurrency);
+  }
+
+  private void run(PrintStream out) throws IOException, InterruptedException {
+    out.println("Polling " + baseUrl + " with " + pattern.readers + " readers of " + (pattern.feeds + 1) + " feeds");
+    // Every feed once, rendered from cold captures
+    PhaseStats cold = new PhaseStats("Cold");
+    long start = System.nanoTime();
+    long now = System.nanoTime();
+    for (int feed = -1; feed < pattern.feeds; feed++) {
+      String feedPath = feed == -1 ? SyntheticBook.getRootFeedPath() : SyntheticBook.getFeedPath(feed);
+      send(feedPath, null, now, cold, null);
+    }
+    awaitInFlight();
+    cold.print(out, System.nanoTime() - start);
+
+    PollingPattern.Reader[] readers = pattern.createReaders(random);
+    PhaseStats total = new PhaseStats("Total");
+    long totalStart = System.nanoTime();
+    for (int hour = 1; hour <= pattern.hours; hour++) {
+      for (int i = 0; i < pattern.updates; i++) {
+        book.update(random.nextInt(pattern.feeds), random.nextInt(pattern.pagesPerFeed));
+      }
+      PhaseStats stats = new PhaseStats("Hour " + hour);
+      long hourStart = System.nanoTime();
+      poll(readers, stats, hourStart, total);
+      long hourEnd = hourStart + TimeUnit.SECONDS.toNanos(pattern.hourSeconds);
+      long remaining = hourEnd - System.nanoTime();
+      if (remaining > 0) {
+        TimeUnit.NANOSECONDS.sleep(remaining);
+      }
+      stats.print(out, Math.max(System.nanoTime(), hourEnd) - hourStart);
+    }
+    total.print(out, System.nanoTime() - totalStart);
+  }
+
+  /**
+   * Polls each reader at its offset from the start time, then waits for all responses.
+   */
+  private void poll(PollingPattern.Reader[] readers, PhaseStats stats, long startNanos, PhaseStats... also)
+      throws InterruptedException {
+    for (PollingPattern.Reader reader : readers) {
+      long scheduled = startNanos + reader.offsetNanos;
+      long delay = scheduled - System.nanoTime();
+      if (delay > 0) {
+        TimeUnit.NANOSECONDS.sleep(delay);
+      }
+      String ifModifiedSince = reader.conditional ? reader.lastModified : null;
+      send(reader.feedPath, ifModifiedSince, scheduled, stats, reader, also);
+    }
+    awaitInFlight();
+  }
+
+  /**
+   * Sends one request once a slot is free, recording the response when received.
+   */
+  private void send(
+      String feedPath, String ifModifiedSince, long scheduled,
+      PhaseStats stats, PollingPattern.Reader reader, PhaseStats... also
+  ) throws InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + feedPath)).timeout(TIMEOUT);
+    if (pattern.gzip) {
+      request.header("Accept-Encoding", "gzip");
+    }
+    if (ifModifiedSince != null) {
+      request.header("If-Modified-Since", ifModifiedSince);
+    }
+    inFlight.acquire();
+    long sent = System.nanoTime();
+    client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, e) -> {
+      try {
+        long done = System.nanoTime();
+        if (e != null) {
+          stats.failed();
+          for (PhaseStats s : also) {
+            s.failed();
+          }
+        } else {
+          int status = response.statusCode();
+          int length = response.body().length;
+          stats.record(scheduled, sent, done, ifModifiedSince != null, status, length);
+          for (PhaseStats s : also) {
+            s.record(scheduled, sent, done, ifModifiedSince != null, status, length);
+          }
+          if (reader != null && status == 200) {
+            response.headers().firstValue("Last-Modified").ifPresent(lastModified -> reader.lastModified = lastModified);
+          }
+        }
+      } finally {
+        inFlight.release();
+      }
+    });
+  }
+
+  private void awaitInFlight() throws InterruptedException {
+    inFlight.acquire(pattern.concurrency);
+    inFlight.release(pattern.concurrency);
+  }
+}
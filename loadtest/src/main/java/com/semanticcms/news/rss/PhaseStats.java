@@ -0,0 +1,148 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the responses of one phase of the load test, then reports throughput, exact latency percentiles, and
+ * status counts.
+ *
+ * <p>Latency is measured from the time each poll was scheduled, not when it was sent, so time spent waiting for a
+ * free connection is not hidden when the server falls behind.  Service time is measured from when it was sent.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PhaseStats {
+
+  private final String name;
+  private long[] latencies = new long[1024];
+  private long[] serviceTimes = new long[1024];
+  private int count;
+  private final Map<Integer, Long> statuses = new TreeMap<>();
+  private long failures;
+  private long conditional;
+  private long conditionalNotModified;
+  private long bytes;
+
+  PhaseStats(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Records one response.
+   *
+   * @param  scheduledNanos  when the poll was due
+   * @param  sentNanos       when the request was sent
+   * @param  doneNanos       when the entire response was received
+   */
+  synchronized void record(
+      long scheduledNanos, long sentNanos, long doneNanos,
+      boolean wasConditional, int status, long length
+  ) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+      serviceTimes = Arrays.copyOf(serviceTimes, count * 2);
+    }
+    latencies[count] = doneNanos - scheduledNanos;
+    serviceTimes[count] = doneNanos - sentNanos;
+    count++;
+    statuses.merge(status, 1L, Long::sum);
+    if (wasConditional) {
+      conditional++;
+      if (status == 304) {
+        conditionalNotModified++;
+      }
+    }
+    bytes += length;
+  }
+
+  /**
+   * Records a request that failed without a response, such as a refused connection or timeout.
+   */
+  synchronized void failed() {
+    failures++;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000d;
+  }
+
+  private static double percentile(long[] sorted, int count, double fraction) {
+    int index = (int) Math.ceil(count * fraction) - 1;
+    return toMillis(sorted[Math.max(0, Math.min(index, count - 1))]);
+  }
+
+  private static void printPercentiles(PrintStream out, String label, long[] values, int count) {
+    long[] sorted = Arrays.copyOf(values, count);
+    Arrays.sort(sorted);
+    out.printf(
+        "  %-8s p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, p99.9=%.2f ms, max=%.2f ms%n",
+        label,
+        percentile(sorted, count, 0.50),
+        percentile(sorted, count, 0.90),
+        percentile(sorted, count, 0.99),
+        percentile(sorted, count, 0.999),
+        toMillis(sorted[count - 1])
+    );
+  }
+
+  /**
+   * Prints the report of this phase.
+   *
+   * @param  elapsedNanos  the wall time of the phase, for throughput
+   */
+  synchronized void print(PrintStream out, long elapsedNanos) {
+    double seconds = elapsedNanos / 1_000_000_000d;
+    out.printf(
+        "%s: %d responses, %d failures in %.1f s: %.1f req/s, %.1f KiB/s%n",
+        name, count, failures, seconds, count / seconds, bytes / 1024d / seconds
+    );
+    if (count == 0) {
+      return;
+    }
+    printPercentiles(out, "latency", latencies, count);
+    printPercentiles(out, "service", serviceTimes, count);
+    StringBuilder line = new StringBuilder("  status   ");
+    boolean first = true;
+    for (Map.Entry<Integer, Long> entry : statuses.entrySet()) {
+      if (first) {
+        first = false;
+      } else {
+        line.append(", ");
+      }
+      line.append(entry.getKey()).append('=').append(entry.getValue());
+    }
+    out.println(line);
+    if (conditional > 0) {
+      out.printf(
+          "  conditional %d, not modified %d (%.1f%%)%n",
+          conditional, conditionalNotModified, conditionalNotModified * 100d / conditional
+      );
+    }
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The configurable polling pattern of a load test, given as <code>name=value</code> arguments.
+ *
+ * <p>Time is compressed: every reader polls its feed once per simulated hour of {@link #hourSeconds}.  A fraction
+ * of readers poll within the first seconds of each hour, like the cron jobs and aggregators that produce bursts at
+ * the top of the hour, while the rest are spread evenly.  Readers pick feeds by a Zipf distribution, with the
+ * aggregated feed of the content root the most popular.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PollingPattern {
+
+  static final String USAGE = "Usage: LoadTest [name=value]...\n"
+      + "  feeds=100          Number of feeds, in addition to the feed of the content root\n"
+      + "  pagesPerFeed=5     News pages per feed\n"
+      + "  newsPerPage=4      News per page\n"
+      + "  readers=2000       Number of readers, each polling one feed once per hour\n"
+      + "  hours=3            Number of simulated hours\n"
+      + "  hourSeconds=60     Length of each simulated hour\n"
+      + "  burst=0.6          Fraction of readers polling at the top of the hour\n"
+      + "  burstSeconds=2     Length of the burst at the top of the hour\n"
+      + "  conditional=0.7    Fraction of readers sending If-Modified-Since\n"
+      + "  gzip=true          Whether readers accept gzip\n"
+      + "  skew=1.0           Zipf exponent of feed popularity, 0 for uniform\n"
+      + "  updates=2          Pages given a new news at the start of each hour\n"
+      + "  concurrency=200    Maximum requests in flight from the load generator\n"
+      + "  maxThreads=200     Request processing threads of the container\n"
+      + "  seed=1             Random seed of the pattern\n"
+      + "  init.<name>=value  Context init parameter, such as init." + RssServlet.ASYNC_THREADS_INIT_PARAM + "=8";
+
+  private static final String INIT_PREFIX = "init.";
+
+  /**
+   * One reader, always polling the same feed at the same offset into each hour.
+   */
+  static final class Reader {
+
+    final String feedPath;
+    final boolean conditional;
+    final long offsetNanos;
+
+    /**
+     * The <code>Last-Modified</code> of the most recent full response, sent back as <code>If-Modified-Since</code>
+     * by conditional readers.
+     */
+    volatile String lastModified;
+
+    private Reader(String feedPath, boolean conditional, long offsetNanos) {
+      this.feedPath = feedPath;
+      this.conditional = conditional;
+      this.offsetNanos = offsetNanos;
+    }
+  }
+
+  int feeds = 100;
+  int pagesPerFeed = 5;
+  int newsPerPage = 4;
+  int readers = 2000;
+  int hours = 3;
+  int hourSeconds = 60;
+  double burst = 0.6;
+  int burstSeconds = 2;
+  double conditional = 0.7;
+  boolean gzip = true;
+  double skew = 1.0;
+  int updates = 2;
+  int concurrency = 200;
+  int maxThreads = 200;
+  long seed = 1;
+  final Map<String, String> initParams = new LinkedHashMap<>();
+
+  static int parseInt(String name, String value, int min) {
+    int i;
+    try {
+      i = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+    }
+    if (i < min) {
+      throw new IllegalArgumentException(name + " may not be less than " + min + ": " + i);
+    }
+    return i;
+  }
+
+  private static double parseFraction(String name, String value) {
+    double d;
+    try {
+      d = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+    }
+    if (!(d >= 0 && d <= 1)) {
+      throw new IllegalArgumentException(name + " must be between 0 and 1: " + d);
+    }
+    return d;
+  }
+
+  /**
+   * Parses the arguments of the load test.
+   *
+   * @throws  IllegalArgumentException  when any argument is unknown or invalid
+   */
+  static PollingPattern parse(String... args) throws IllegalArgumentException {
+    PollingPattern pattern = new PollingPattern();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (eq == -1) {
+        throw new IllegalArgumentException("Argument is not name=value: " + arg);
+      }
+      String name = arg.substring(0, eq);
+      String value = arg.substring(eq + 1);
+      if (name.startsWith(INIT_PREFIX)) {
+        pattern.initParams.put(name.substring(INIT_PREFIX.length()), value);
+        continue;
+      }
+      switch (name) {
+        case "feeds":
+          pattern.feeds = parseInt(name, value, 1);
+          break;
+        case "pagesPerFeed":
+          pattern.pagesPerFeed = parseInt(name, value, 1);
+          break;
+        case "newsPerPage":
+          pattern.newsPerPage = parseInt(name, value, 1);
+          break;
+        case "readers":
+          pattern.readers = parseInt(name, value, 1);
+          break;
+        case "hours":
+          pattern.hours = parseInt(name, value, 1);
+          break;
+        case "hourSeconds":
+          pattern.hourSeconds = parseInt(name, value, 1);
+          break;
+        case "burst":
+          pattern.burst = parseFraction(name, value);
+          break;
+        case "burstSeconds":
+          pattern.burstSeconds = parseInt(name, value, 1);
+          break;
+        case "conditional":
+          pattern.conditional = parseFraction(name, value);
+          break;
+        case "gzip":
+          pattern.gzip = Boolean.parseBoolean(value);
+          break;
+        case "skew":
+          try {
+            pattern.skew = Double.parseDouble(value);
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+          }
+          if (!(pattern.skew >= 0)) {
+            throw new IllegalArgumentException(name + " may not be negative: " + pattern.skew);
+          }
+          break;
+        case "updates":
+          pattern.updates = parseInt(name, value, 0);
+          break;
+        case "concurrency":
+          pattern.concurrency = parseInt(name, value, 1);
+          break;
+        case "maxThreads":
+          pattern.maxThreads = parseInt(name, value, 1);
+          break;
+        case "seed":
+          try {
+            pattern.seed = Long.parseLong(value);
+          } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument: " + name);
+      }
+    }
+    if (pattern.burstSeconds > pattern.hourSeconds) {
+      throw new IllegalArgumentException(
+          "burstSeconds may not be more than hourSeconds: " + pattern.burstSeconds + " > " + pattern.hourSeconds);
+    }
+    return pattern;
+  }
+
+  /**
+   * Creates the readers, sorted by their offset into each hour.
+   */
+  Reader[] createReaders(Random random) {
+    // Cumulative Zipf weights, where rank zero is the feed of the content root
+    double[] cumulative = new double[feeds + 1];
+    double total = 0;
+    for (int rank = 0; rank <= feeds; rank++) {
+      total += 1 / Math.pow(rank + 1d, skew);
+      cumulative[rank] = total;
+    }
+    long hourNanos = TimeUnit.SECONDS.toNanos(hourSeconds);
+    long burstNanos = TimeUnit.SECONDS.toNanos(burstSeconds);
+    Reader[] result = new Reader[readers];
+    for (int i = 0; i < readers; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+      if (rank < 0) {
+        rank = -rank - 1;
+      }
+      rank = Math.min(rank, feeds);
+      result[i] = new Reader(
+          rank == 0 ? SyntheticBook.getRootFeedPath() : SyntheticBook.getFeedPath(rank - 1),
+          random.nextDouble() < conditional,
+          (long) (random.nextDouble() * (random.nextDouble() < burst ? burstNanos : hourNanos))
+      );
+    }
+    Arrays.sort(result, Comparator.comparingLong(reader -> reader.offsetNanos));
+    return result;
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.rss;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the real request path of {@link RssServlet}, deployed with a {@link SyntheticBook} into an
+ * {@link EmbeddedContainer}, split into the phases timed by its {@link RssMetrics}: finding the news, recapturing the
+ * news pages at BODY level, and serialization.
+ *
+ * <p>Each iteration publishes a news on every page, waits until the feed of the content root has changed, then
+ * requests the feed of every other page once, one request at a time.  Every feed is so rendered from modified pages,
+ * without contention.  The time of each phase is the difference of its total in the metrics after and before the
+ * iteration.  The first iterations warm up the JVM and compile the pages, so are not included in the summary.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class ServletPathBenchmark {
+
+  static final String USAGE = "Usage: ServletPathBenchmark [name=value]...\n"
+      + "  feeds=20           Number of feeds, in addition to the feed of the content root\n"
+      + "  pagesPerFeed=5     News pages per feed\n"
+      + "  newsPerPage=4      News per page\n"
+      + "  warmups=3          Iterations before those measured\n"
+      + "  iterations=10      Measured iterations\n"
+      + "  init.<name>=value  Context init parameter, such as init." + RssServlet.ASYNC_THREADS_INIT_PARAM + "=8";
+
+  private static final String INIT_PREFIX = "init.";
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+  /**
+   * The requests are sent one at a time, so few threads are needed.
+   */
+  private static final int MAX_THREADS = 4;
+
+  /**
+   * The milliseconds between polls of the feed of the content root while waiting for a change.
+   */
+  private static final long POLL_INTERVAL = 100;
+
+  /**
+   * The totals of the metrics at one point in time.
+   */
+  private static final class Totals {
+
+    private final long feedsRendered;
+    private final double findNewsMillis;
+    private final double metaCaptureMillis;
+    private final double bodyCaptureMillis;
+    private final double serializationMillis;
+    private final long nanoTime;
+
+    private Totals(RssMetrics metrics) {
+      feedsRendered = metrics.getFeedsRendered();
+      findNewsMillis = getTotalMillis(metrics.getFindNewsTime());
+      metaCaptureMillis = getTotalMillis(metrics.getMetaCaptureTime());
+      bodyCaptureMillis = getTotalMillis(metrics.getBodyCaptureTime());
+      serializationMillis = getTotalMillis(metrics.getSerializationTime());
+      nanoTime = System.nanoTime();
+    }
+
+    private static double getTotalMillis(LatencyStats stats) {
+      return stats.getCount() * stats.getMeanMillis();
+    }
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param  args  the <code>name=value</code> arguments, see {@link #USAGE}
+   */
+  public static void main(String[] args) throws Exception {
+    ServletPathBenchmark benchmark = new ServletPathBenchmark();
+    try {
+      benchmark.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(1);
+      return;
+    }
+    try (EmbeddedContainer container = new EmbeddedContainer(
+        benchmark.feeds, benchmark.pagesPerFeed, benchmark.newsPerPage, MAX_THREADS, benchmark.initParams
+    )) {
+      benchmark.run(container, System.out);
+    }
+  }
+
+  private int feeds = 20;
+  private int pagesPerFeed = 5;
+  private int newsPerPage = 4;
+  private int warmups = 3;
+  private int iterations = 10;
+  private final Map<String, String> initParams = new LinkedHashMap<>();
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(10))
+      .followRedirects(HttpClient.Redirect.NEVER)
+      .build();
+
+  private ServletPathBenchmark() {
+    // Created by main
+  }
+
+  /**
+   * @throws  IllegalArgumentException  when any argument is unknown or invalid
+   */
+  private void parse(String... args) throws IllegalArgumentException {
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (eq == -1) {
+        throw new IllegalArgumentException("Argument is not name=value: " + arg);
+      }
+      String name = arg.substring(0, eq);
+      String value = arg.substring(eq + 1);
+      if (name.startsWith(INIT_PREFIX)) {
+        initParams.put(name.substring(INIT_PREFIX.length()), value);
+        continue;
+      }
+      switch (name) {
+        case "feeds":
+          feeds = PollingPattern.parseInt(name, value, 1);
+          break;
+        case "pagesPerFeed":
+          pagesPerFeed = PollingPattern.parseInt(name, value, 1);
+          break;
+        case "newsPerPage":
+          newsPerPage = PollingPattern.parseInt(name, value, 1);
+          break;
+        case "warmups":
+          warmups = PollingPattern.parseInt(name, value, 0);
+          break;
+        case "iterations":
+          iterations = PollingPattern.parseInt(name, value, 1);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument: " + name);
+      }
+    }
+  }
+
+  private void run(EmbeddedContainer container, PrintStream out) throws IOException, InterruptedException {
+    SyntheticBook book = container.getBook();
+    String baseUrl = container.getBaseUrl();
+    out.println("Rendering " + (feeds + 1) + " feeds of " + baseUrl + " per iteration, "
+        + warmups + " warm-up and " + iterations + " measured iterations");
+    String rootEtag = get(baseUrl + SyntheticBook.getRootFeedPath(), null).headers().firstValue("ETag").orElse(null);
+    double findNewsMillis = 0;
+    double metaCaptureMillis = 0;
+    double bodyCaptureMillis = 0;
+    double serializationMillis = 0;
+    double wallMillis = 0;
+    long feedsRendered = 0;
+    for (int iteration = 1; iteration <= warmups + iterations; iteration++) {
+      Totals before = new Totals(container.getMetrics());
+      for (int feed = 0; feed < feeds; feed++) {
+        for (int page = 0; page < pagesPerFeed; page++) {
+          book.update(feed, page);
+        }
+      }
+      rootEtag = awaitChange(baseUrl + SyntheticBook.getRootFeedPath(), rootEtag);
+      for (int feed = 0; feed < feeds; feed++) {
+        String url = baseUrl + SyntheticBook.getFeedPath(feed);
+        int status = get(url, null).statusCode();
+        if (status != 200) {
+          out.println("  " + url + ": " + status);
+        }
+      }
+      Totals after = new Totals(container.getMetrics());
+      long rendered = after.feedsRendered - before.feedsRendered;
+      double wall = (after.nanoTime - before.nanoTime) / 1_000_000d;
+      double findNews = after.findNewsMillis - before.findNewsMillis;
+      double metaCapture = after.metaCaptureMillis - before.metaCaptureMillis;
+      double bodyCapture = after.bodyCaptureMillis - before.bodyCaptureMillis;
+      double serialization = after.serializationMillis - before.serializationMillis;
+      boolean measured = iteration > warmups;
+      StringBuilder line = new StringBuilder(measured ? "Iteration " : "Warm-up ").append(iteration);
+      appendPhases(line, rendered, wall, findNews, metaCapture, bodyCapture, serialization);
+      out.println(line);
+      if (measured) {
+        feedsRendered += rendered;
+        wallMillis += wall;
+        findNewsMillis += findNews;
+        metaCaptureMillis += metaCapture;
+        bodyCaptureMillis += bodyCapture;
+        serializationMillis += serialization;
+      }
+    }
+    StringBuilder line = new StringBuilder("Mean of ").append(iterations).append(" iterations");
+    appendPhases(
+        line,
+        feedsRendered / iterations,
+        wallMillis / iterations,
+        findNewsMillis / iterations,
+        metaCaptureMillis / iterations,
+        bodyCaptureMillis / iterations,
+        serializationMillis / iterations
+    );
+    out.println(line);
+    if (feedsRendered > 0) {
+      line.setLength(0);
+      line.append("Mean per feed rendered");
+      appendPhases(
+          line,
+          1,
+          wallMillis / feedsRendered,
+          findNewsMillis / feedsRendered,
+          metaCaptureMillis / feedsRendered,
+          bodyCaptureMillis / feedsRendered,
+          serializationMillis / feedsRendered
+      );
+      out.println(line);
+    }
+  }
+
+  private static void appendPhases(
+      StringBuilder line, long feedsRendered, double wallMillis,
+      double findNewsMillis, double metaCaptureMillis, double bodyCaptureMillis, double serializationMillis
+  ) {
+    line.append(String.format(
+        Locale.ROOT,
+        ": %d feeds rendered in %.1f ms, find news %.1f ms, META capture %.1f ms, BODY capture %.1f ms,"
+            + " serialization %.1f ms",
+        feedsRendered, wallMillis, findNewsMillis, metaCaptureMillis, bodyCaptureMillis, serializationMillis
+    ));
+  }
+
+  /**
+   * Polls a feed until its entity tag changes, since modifications to pages are only noticed once their
+   * modification times are refreshed.
+   *
+   * @return  the new entity tag
+   */
+  private String awaitChange(String url, String etag) throws IOException, InterruptedException {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (true) {
+      HttpResponse<byte[]> response = get(url, etag);
+      if (response.statusCode() != 304) {
+        return response.headers().firstValue("ETag").orElse(null);
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        throw new IOException("Feed not changed within " + TIMEOUT + ": " + url);
+      }
+      Thread.sleep(POLL_INTERVAL);
+    }
+  }
+
+  private HttpResponse<byte[]> get(String url, String ifNoneMatch) throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT);
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.news.servlet.RssUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writes a synthetic SemanticCMS book into the document base of the embedded container.
+ *
+ * <p>The book at {@link #BOOK} has one child per feed, each with a number of news pages.  Every feed page has its own
+ * feed, and the content root aggregates all of them, just like the sections of a real site.  Pages are regular
+ * JSPX, so feeds are rendered from real page captures.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class SyntheticBook {
+
+  /**
+   * The name of the synthetic book, which is also its path within the document base.
+   */
+  static final String BOOK = "/synthetic";
+
+  private static final String BODY;
+
+  static {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 8; i++) {
+      body.append("    <p>Paragraph ").append(i)
+          .append(" with <a href=\"#news-").append(i)
+          .append("\">a link &amp; some \"quoted\" text</a> and enough content to be representative of a news body.</p>\n");
+    }
+    BODY = body.toString();
+  }
+
+  private final Path docBase;
+  private final int feeds;
+  private final int pagesPerFeed;
+  private final int newsPerPage;
+  private final Instant published;
+
+  /**
+   * The number of news added to each page by {@link #update(int, int)}.
+   */
+  private final int[][] added;
+
+  SyntheticBook(Path docBase, int feeds, int pagesPerFeed, int newsPerPage) {
+    this.docBase = docBase;
+    this.feeds = feeds;
+    this.pagesPerFeed = pagesPerFeed;
+    this.newsPerPage = newsPerPage;
+    this.published = Instant.now().truncatedTo(ChronoUnit.SECONDS).minus(1, ChronoUnit.DAYS);
+    this.added = new int[feeds][pagesPerFeed];
+  }
+
+  /**
+   * Gets the servlet path of the feed of the content root, which includes the news of every page.
+   */
+  static String getRootFeedPath() {
+    return BOOK + "/index" + RssUtils.EXTENSION;
+  }
+
+  /**
+   * Gets the servlet path of the feed of one child of the content root.
+   */
+  static String getFeedPath(int feed) {
+    return BOOK + "/feed-" + feed + "/index" + RssUtils.EXTENSION;
+  }
+
+  /**
+   * Writes the entire book, along with the books configuration of the application.
+   */
+  void write() throws IOException {
+    write("WEB-INF/books.properties",
+        "root.book=" + BOOK + "\n"
+            + "books.1.name=" + BOOK + "\n"
+            + "books.1.cvsworkDirectory=auto\n"
+            + "books.1.allowRobots=false\n");
+    write(BOOK.substring(1) + "/book.properties",
+        "content.root=/index.jspx\n"
+            + "copyright.rightsHolder=AO Industries, Inc.\n"
+            + "copyright.rights=All rights reserved\n"
+            + "copyright.dateCopyrighted=2026\n"
+            + "author.1.name=AO Industries, Inc.\n"
+            + "title=Synthetic Book\n"
+            + "param.rss.channel.ttl=60\n");
+    StringBuilder children = new StringBuilder();
+    for (int feed = 0; feed < feeds; feed++) {
+      children.append("    <core:child page=\"feed-").append(feed).append("/index.jspx\" />\n");
+    }
+    write(BOOK.substring(1) + "/index.jspx", page("Synthetic Book", children.toString()));
+    for (int feed = 0; feed < feeds; feed++) {
+      children.setLength(0);
+      for (int page = 0; page < pagesPerFeed; page++) {
+        children.append("    <core:child page=\"page-").append(page).append(".jspx\" />\n");
+      }
+      write(BOOK.substring(1) + "/feed-" + feed + "/index.jspx", page("Synthetic Feed " + feed, children.toString()));
+      for (int page = 0; page < pagesPerFeed; page++) {
+        writeNewsPage(feed, page);
+      }
+    }
+  }
+
+  /**
+   * Publishes one more news on the given page, so its feeds change.
+   */
+  synchronized void update(int feed, int page) throws IOException {
+    added[feed][page]++;
+    writeNewsPage(feed, page);
+  }
+
+  private void writeNewsPage(int feed, int page) throws IOException {
+    StringBuilder content = new StringBuilder();
+    int count = newsPerPage + added[feed][page];
+    for (int i = 0; i < count; i++) {
+      // The initial news are spread back in time, with added news published now
+      Instant pubDate = i < newsPerPage
+          ? published.minus((long) ((feed * pagesPerFeed + page) * newsPerPage + i), ChronoUnit.MINUTES)
+          : Instant.now().truncatedTo(ChronoUnit.SECONDS);
+      content.append("    <news:news id=\"news-").append(i)
+          .append("\" title=\"Synthetic News ").append(feed).append('.').append(page).append('.').append(i)
+          .append(" &amp; Friends\" description=\"Description of synthetic news ").append(i)
+          .append(" &lt;with&gt; characters to encode\" pubDate=\"").append(pubDate).append("\" />\n");
+    }
+    content.append(BODY);
+    write(
+        BOOK.substring(1) + "/feed-" + feed + "/page-" + page + ".jspx",
+        page("Synthetic Page " + feed + '.' + page, content.toString())
+    );
+  }
+
+  private static String page(String title, String content) {
+    return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<jsp:root\n"
+        + "  xmlns:core=\"https://semanticcms.com/core/taglib/\"\n"
+        + "  xmlns:jsp=\"http://java.sun.com/JSP/Page\"\n"
+        + "  xmlns:news=\"https://semanticcms.com/news/taglib/\"\n"
+        + "  version=\"2.1\"\n"
+        + ">\n"
+        + "  <jsp:directive.page language=\"java\" pageEncoding=\"UTF-8\" />\n"
+        + "  <jsp:directive.page session=\"false\" />\n"
+        + "  <core:page title=\"" + title + "\">\n"
+        + content
+        + "  </core:page>\n"
+        + "</jsp:root>\n";
+  }
+
+  /**
+   * Writes a file by replacing it, so the container never compiles a partially written page.
+   */
+  private void write(String path, String content) throws IOException {
+    Path file = docBase.resolve(path);
+    Files.createDirectories(file.getParent());
+    Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      Files.writeString(temp, content, StandardCharsets.UTF_8);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+}
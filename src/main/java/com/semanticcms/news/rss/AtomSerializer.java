@@ -0,0 +1,177 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import static com.aoapps.encoding.TextInXhtmlAttributeEncoder.textInXhtmlAttributeEncoder;
+import static com.aoapps.encoding.TextInXhtmlEncoder.encodeTextInXhtml;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+
+/**
+ * Writes the <a href="https://datatracker.ietf.org/doc/html/rfc4287">Atom 1.0</a> format.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class AtomSerializer {
+
+  /** Make no instances. */
+  private AtomSerializer() {
+    throw new AssertionError();
+  }
+
+  private static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+
+  /**
+   * The <code>&lt;generator&gt;</code> of all feeds, encoded once.
+   */
+  private static final String GENERATOR_ELEMENT;
+
+  static {
+    StringBuilder sb = new StringBuilder("    <generator");
+    try {
+      String uri = ChannelConfig.GENERATOR_URI;
+      if (uri != null && !uri.isEmpty()) {
+        sb.append(" uri=\"");
+        textInXhtmlAttributeEncoder.append(uri, sb);
+        sb.append('"');
+      }
+      sb.append(" version=\"");
+      textInXhtmlAttributeEncoder.append(ChannelConfig.GENERATOR_VERSION, sb);
+      sb.append("\">");
+      encodeTextInXhtml(ChannelConfig.GENERATOR, sb);
+    } catch (IOException e) {
+      throw new AssertionError("IOException should not occur on StringBuilder", e);
+    }
+    GENERATOR_ELEMENT = sb.append("</generator>\n").toString();
+  }
+
+  private static final String HTML_CONTENT_TYPE = "text/html";
+
+  private static void writeElement(String indent, String elementName, String value, PrintWriter out) throws IOException {
+    if (value != null) {
+      out.print(indent);
+      out.print('<');
+      out.print(elementName);
+      out.print('>');
+      encodeTextInXhtml(value, out);
+      out.print("</");
+      out.print(elementName);
+      out.print(">\n");
+    }
+  }
+
+  private static void writeLink(String indent, String rel, String type, String href, PrintWriter out) throws IOException {
+    if (href != null) {
+      out.print(indent);
+      out.print("<link rel=\"");
+      out.print(rel);
+      if (type != null) {
+        out.print("\" type=\"");
+        textInXhtmlAttributeEncoder.append(type, out);
+      }
+      out.print("\" href=\"");
+      textInXhtmlAttributeEncoder.append(href, out);
+      out.print("\"/>\n");
+    }
+  }
+
+  private static void writeDateElement(String indent, String elementName, Instant date, PrintWriter out) {
+    out.print(indent);
+    out.print('<');
+    out.print(elementName);
+    out.print('>');
+    FeedWriter.writeIsoDate(date, out);
+    out.print("</");
+    out.print(elementName);
+    out.print(">\n");
+  }
+
+  static void write(FeedChannel channel, PrintWriter out) throws IOException {
+    out.print("<?xml version=\"1.0\" encoding=\"" + RssServlet.ENCODING + "\"?>\n"
+        + "<feed xmlns=\"" + ATOM_NS + '"'
+        + (channel.isArchive() ? (" xmlns:fh=\"" + FeedArchive.FH_NS + '"') : "")
+        + ">\n");
+    writeElement("    ", "id", channel.getFeedUrl(), out);
+    writeElement("    ", "title", channel.getTitle(), out);
+    writeElement("    ", "subtitle", channel.getDescription(), out);
+    writeLink("    ", "alternate", HTML_CONTENT_TYPE, channel.getLink(), out);
+    writeLink("    ", "self", FeedFormat.ATOM.getContentType(), channel.getFeedUrl(), out);
+    // WebSub, only the current feed changes
+    writeLink("    ", "hub", null, channel.getHub(), out);
+    // RFC 5005 paging and archiving
+    if (channel.isArchive()) {
+      out.print("    <fh:archive/>\n");
+    }
+    writeLink("    ", "current", FeedFormat.ATOM.getContentType(), channel.getCurrentUrl(), out);
+    writeLink("    ", "prev-archive", FeedFormat.ATOM.getContentType(), channel.getPrevArchiveUrl(), out);
+    writeLink("    ", "next-archive", FeedFormat.ATOM.getContentType(), channel.getNextArchiveUrl(), out);
+    // updated is required, the beginning of time when there are no news
+    Instant lastBuildDate = channel.getLastBuildDate();
+    writeDateElement("    ", "updated", lastBuildDate == null ? Instant.EPOCH : lastBuildDate, out);
+    // author is required, the managing editor when provided or the feed title otherwise
+    out.print("    <author>\n");
+    String managingEditor = channel.getConfig().getManagingEditor();
+    writeElement("        ", "name", managingEditor == null ? channel.getTitle() : managingEditor, out);
+    out.print("    </author>\n");
+    writeElement("    ", "rights", channel.getCopyright(), out);
+    out.print(GENERATOR_ELEMENT);
+    FeedChannel.Image image = channel.getImage();
+    if (image != null) {
+      writeElement("    ", "logo", image.getUrl(), out);
+    }
+    for (FeedChannel.Entry entry : channel.getEntries()) {
+      writeEntry(entry, out);
+    }
+    out.print("</feed>\n");
+  }
+
+  private static void writeEntry(FeedChannel.Entry entry, PrintWriter out) throws IOException {
+    FeedItem item = entry.getItem();
+    out.print("    <entry>\n");
+    writeElement("        ", "id", item.getGuid(), out);
+    writeElement("        ", "title", item.getTitle(), out);
+    writeLink("        ", "alternate", HTML_CONTENT_TYPE, item.getLink(), out);
+    writeDateElement("        ", "published", item.getPubDate(), out);
+    writeDateElement("        ", "updated", item.getPubDate(), out);
+    writeElement("        ", "summary", item.getDescription(), out);
+    String contentXml = item.getContentXml();
+    if (contentXml != null) {
+      // The content is already encoded as text
+      out.print("        <content type=\"html\">\n");
+      out.print(contentXml);
+      out.print("        </content>\n");
+    }
+    // source if from a different page
+    if (entry.getSourceUrl() != null) {
+      out.print("        <source>\n");
+      writeElement("            ", "id", entry.getSourceUrl(), out);
+      writeElement("            ", "title", entry.getSourceTitle(), out);
+      writeLink("            ", "self", FeedFormat.ATOM.getContentType(), entry.getSourceUrl(), out);
+      out.print("        </source>\n");
+    }
+    out.print("    </entry>\n");
+  }
+}
@@ -0,0 +1,463 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.Book;
+import jakarta.servlet.ServletException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * The <code>rss.*</code> parameters of one book, parsed and validated once.
+ *
+ * <p>The parts of the channel that depend only on the book are also encoded once, so a request only encodes the
+ * parts that depend on the page, its news, and the host.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class ChannelConfig {
+
+  private static final String RSS_PARAM_PREFIX = "rss.";
+
+  private static final String CHANNEL_PARAM_PREFIX = RSS_PARAM_PREFIX + "channel.";
+
+  private static final String IMAGE_PARAM_PREFIX = CHANNEL_PARAM_PREFIX + "image.";
+
+  private static final String WEBSUB_HUB_PARAM = RSS_PARAM_PREFIX + "websub.hub";
+
+  /**
+   * The name of the generator of all feeds.
+   */
+  static final String GENERATOR = RssServlet.class.getName();
+
+  /**
+   * The version of the generator of all feeds.
+   */
+  static final String GENERATOR_VERSION = Maven.properties.getProperty("project.version");
+
+  /**
+   * The URL of the generator of all feeds.
+   */
+  static final String GENERATOR_URI = Maven.properties.getProperty("project.url");
+
+  static final String DOCS = "https://cyber.harvard.edu/rss/rss.html";
+
+  /**
+   * The default max items to include.
+   */
+  private static final int DEFAULT_MAX_ITEMS = 50;
+
+  /**
+   * The default number of news pages recaptured at a time.
+   */
+  private static final int DEFAULT_CAPTURE_CONCURRENCY = 1;
+
+  /**
+   * The maximum number of news pages recaptured at a time.
+   */
+  static final int MAX_CAPTURE_CONCURRENCY = 100;
+
+  /**
+   * The default maximum number of text characters of truncated item bodies.
+   */
+  private static final int DEFAULT_TRUNCATE_LENGTH = 1000;
+
+  /**
+   * Gets a book parameter, null if empty.
+   */
+  private static String getBookParam(Map<String, String> bookParams, String paramName) {
+    String value = bookParams.get(paramName);
+    if (value != null && value.isEmpty()) {
+      value = null;
+    }
+    return value;
+  }
+
+  /**
+   * Gets an integer channel parameter, using the default when not set.
+   *
+   * @throws  ServletException  when not a number or less than the minimum
+   */
+  private static int getIntChannelParam(
+      Map<String, String> bookParams,
+      String name,
+      int minimum,
+      int defaultValue
+  ) throws ServletException {
+    return getIntChannelParam(bookParams, name, minimum, Integer.MAX_VALUE, defaultValue);
+  }
+
+  /**
+   * Gets an integer channel parameter, using the default when not set.
+   *
+   * @throws  ServletException  when not a number, less than the minimum, or more than the maximum
+   */
+  private static int getIntChannelParam(
+      Map<String, String> bookParams,
+      String name,
+      int minimum,
+      int maximum,
+      int defaultValue
+  ) throws ServletException {
+    String value = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + name);
+    if (value == null) {
+      return defaultValue;
+    }
+    int i;
+    try {
+      i = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new ServletException("RSS " + name + " is not a number: " + value, e);
+    }
+    if (i < minimum) {
+      throw new ServletException("RSS " + name + " may not be less than " + minimum + ": " + i);
+    }
+    if (i > maximum) {
+      throw new ServletException("RSS " + name + " may not be more than " + maximum + ": " + i);
+    }
+    return i;
+  }
+
+  /**
+   * Parses the <code>ttl</code> as minutes, which is written to the feed as-is even when not a number.
+   *
+   * @return  the minutes or {@code 0} when not set or not a non-negative number
+   */
+  private static int parseTtlMinutes(String ttl) {
+    if (ttl != null) {
+      try {
+        return Math.max(Integer.parseInt(ttl.trim()), 0);
+      } catch (NumberFormatException e) {
+        // Not used for max-age
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Splits a list parameter on commas and whitespace.
+   */
+  private static String[] split(String value) {
+    return value.trim().split("[,\\s]+");
+  }
+
+  /**
+   * Parses the hours, in GMT, when aggregators may skip reading the feed.
+   *
+   * @throws  ServletException  when not an hour from 0 to 23 or repeated
+   */
+  private static SortedSet<Integer> parseSkipHours(String value) throws ServletException {
+    SortedSet<Integer> hours = new TreeSet<>();
+    if (value != null) {
+      for (String hourVal : split(value)) {
+        int hour;
+        try {
+          hour = Integer.parseInt(hourVal);
+        } catch (NumberFormatException e) {
+          throw new ServletException("RSS skipHours is not a number: " + hourVal, e);
+        }
+        if (hour < 0 || hour > 23) {
+          throw new ServletException("RSS skipHours may not be \"" + hour + "\", must be from 0 to 23");
+        }
+        if (!hours.add(hour)) {
+          throw new ServletException("RSS skipHours may not repeat " + hour);
+        }
+      }
+    }
+    return Collections.unmodifiableSortedSet(hours);
+  }
+
+  /**
+   * Parses the days, in GMT, when aggregators may skip reading the feed.
+   *
+   * @throws  ServletException  when not the name of a day or repeated
+   */
+  private static Set<DayOfWeek> parseSkipDays(String value) throws ServletException {
+    Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+    if (value != null) {
+      for (String dayVal : split(value)) {
+        DayOfWeek day;
+        try {
+          day = DayOfWeek.valueOf(dayVal.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+          throw new ServletException("RSS skipDays may not be \"" + dayVal + "\", must be one of "
+              + Arrays.toString(DayOfWeek.values()), e);
+        }
+        if (!days.add(day)) {
+          throw new ServletException("RSS skipDays may not repeat " + dayVal);
+        }
+      }
+    }
+    return Collections.unmodifiableSet(days);
+  }
+
+  /**
+   * Parses and validates the configuration of a book.
+   *
+   * @throws  ServletException  when any parameter is invalid
+   */
+  static ChannelConfig of(Book book) throws ServletException {
+    return new ChannelConfig(book);
+  }
+
+  private final Map<String, String> rssParams;
+  private final int maxItems;
+  private final int captureConcurrency;
+  private final int staleWhileRevalidate;
+  private final ItemContent itemContent;
+  private final int truncateLength;
+  private final String managingEditor;
+  private final String webMaster;
+  private final String ttl;
+  private final int ttlMinutes;
+  private final SortedSet<Integer> skipHours;
+  private final Set<DayOfWeek> skipDays;
+  private final String rating;
+  private final String imagePath;
+  private final String imageWidth;
+  private final String imageHeight;
+  private final String imageDescription;
+  private final String rssElements;
+  private final String hub;
+
+  private ChannelConfig(Book book) throws ServletException {
+    Map<String, String> bookParams = book.getParam();
+    Map<String, String> params = new HashMap<>();
+    for (Map.Entry<String, String> entry : bookParams.entrySet()) {
+      if (entry.getKey().startsWith(RSS_PARAM_PREFIX)) {
+        params.put(entry.getKey(), entry.getValue());
+      }
+    }
+    rssParams = Collections.unmodifiableMap(params);
+    maxItems = getIntChannelParam(bookParams, "maxItems", 1, DEFAULT_MAX_ITEMS);
+    captureConcurrency = getIntChannelParam(
+        bookParams,
+        "captureConcurrency",
+        1,
+        MAX_CAPTURE_CONCURRENCY,
+        DEFAULT_CAPTURE_CONCURRENCY
+    );
+    staleWhileRevalidate = getIntChannelParam(bookParams, "staleWhileRevalidate", 0, 0);
+    {
+      String itemContentVal = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "itemContent");
+      if (itemContentVal == null) {
+        itemContent = ItemContent.BODY;
+      } else {
+        itemContent = ItemContent.forParam(itemContentVal);
+        if (itemContent == null) {
+          throw new ServletException("RSS itemContent may not be \"" + itemContentVal + "\", must be one of "
+              + Arrays.toString(ItemContent.values()));
+        }
+      }
+    }
+    truncateLength = getIntChannelParam(bookParams, "truncateLength", 1, DEFAULT_TRUNCATE_LENGTH);
+    managingEditor = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "managingEditor");
+    webMaster = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "webMaster");
+    // Kept as written for the feed, only used for max-age when a number of minutes
+    ttl = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "ttl");
+    ttlMinutes = parseTtlMinutes(ttl);
+    skipHours = parseSkipHours(getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "skipHours"));
+    skipDays = parseSkipDays(getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "skipDays"));
+    if (skipHours.size() == 24 || skipDays.size() == 7) {
+      throw new ServletException("RSS skipHours and skipDays may not skip all of the time");
+    }
+    rating = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "rating");
+    // image
+    String imageUrl = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "url");
+    imageWidth = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "width");
+    imageHeight = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "height");
+    imageDescription = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "description");
+    if (imageUrl != null) {
+      // width and height are kept as written for the feed
+      imagePath = book.getPathPrefix() + imageUrl;
+    } else {
+      // Others must not be provided
+      if (imageWidth != null) {
+        throw new ServletException("RSS image width without url");
+      }
+      if (imageHeight != null) {
+        throw new ServletException("RSS image height without url");
+      }
+      if (imageDescription != null) {
+        throw new ServletException("RSS image description without url");
+      }
+      imagePath = null;
+    }
+    rssElements = RssSerializer.encodeConfigElements(this);
+    hub = getBookParam(bookParams, WEBSUB_HUB_PARAM);
+    if (hub != null) {
+      URI hubUri;
+      try {
+        hubUri = new URI(hub);
+      } catch (URISyntaxException e) {
+        throw new ServletException("RSS websub.hub is not a URL: " + hub, e);
+      }
+      String scheme = hubUri.getScheme();
+      if ((!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) || hubUri.getHost() == null) {
+        throw new ServletException("RSS websub.hub may not be \"" + hub + "\", must be an absolute http or https URL");
+      }
+    }
+  }
+
+  /**
+   * The <code>rss.*</code> parameters, which affect the feed.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Already unmodifiable
+  Map<String, String> getRssParams() {
+    return rssParams;
+  }
+
+  /**
+   * The max items per feed or archive page.
+   */
+  int getMaxItems() {
+    return maxItems;
+  }
+
+  /**
+   * The number of news pages recaptured at a time.
+   */
+  int getCaptureConcurrency() {
+    return captureConcurrency;
+  }
+
+  /**
+   * The seconds a feed may be served stale while re-rendered, or after a failure.  {@code 0} when disabled.
+   */
+  int getStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  /**
+   * What each item contains.
+   */
+  ItemContent getItemContent() {
+    return itemContent;
+  }
+
+  /**
+   * The maximum number of text characters of item bodies, or {@code 0} when not {@link ItemContent#TRUNCATED}.
+   */
+  int getTruncateLength() {
+    return (itemContent == ItemContent.TRUNCATED) ? truncateLength : 0;
+  }
+
+  String getManagingEditor() {
+    return managingEditor;
+  }
+
+  String getWebMaster() {
+    return webMaster;
+  }
+
+  String getTtl() {
+    return ttl;
+  }
+
+  /**
+   * The hours, in GMT, when aggregators may skip reading the feed.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Already unmodifiable
+  SortedSet<Integer> getSkipHours() {
+    return skipHours;
+  }
+
+  /**
+   * The days, in GMT, when aggregators may skip reading the feed.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Already unmodifiable
+  Set<DayOfWeek> getSkipDays() {
+    return skipDays;
+  }
+
+  /**
+   * Gets the seconds a current feed may be cached, which is its <code>ttl</code> extended through any following
+   * <code>skipHours</code> and <code>skipDays</code>.
+   *
+   * @return  the seconds or {@code 0} when not to be cached
+   */
+  long getMaxAge(long currentTimeMillis) {
+    if (ttlMinutes == 0 && skipHours.isEmpty() && skipDays.isEmpty()) {
+      return 0;
+    }
+    Instant now = Instant.ofEpochMilli(currentTimeMillis);
+    ZonedDateTime expires = now.plus(ttlMinutes, ChronoUnit.MINUTES).atZone(ZoneOffset.UTC);
+    // Not every hour is skipped, so this ends within a week
+    while (skipHours.contains(expires.getHour()) || skipDays.contains(expires.getDayOfWeek())) {
+      expires = expires.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+    }
+    return ChronoUnit.SECONDS.between(now, expires);
+  }
+
+  String getRating() {
+    return rating;
+  }
+
+  /**
+   * The context-relative path of the image, {@code null} when no image.
+   */
+  String getImagePath() {
+    return imagePath;
+  }
+
+  String getImageWidth() {
+    return imageWidth;
+  }
+
+  String getImageHeight() {
+    return imageHeight;
+  }
+
+  String getImageDescription() {
+    return imageDescription;
+  }
+
+  /**
+   * The absolute URL of the WebSub hub notified when feeds change, {@code null} when none.
+   */
+  String getHub() {
+    return hub;
+  }
+
+  /**
+   * The RSS channel elements that depend only on the book, already encoded.
+   */
+  String getRssElements() {
+    return rssElements;
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.news.model.News;
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Pages news into a current feed and archived feeds, per
+ * <a href="https://datatracker.ietf.org/doc/html/rfc5005">RFC 5005: Feed Paging and Archiving</a>.
+ *
+ * <p>The current feed is the newest news, up to the maximum number of items.  Older news are in archive pages of the
+ * same size, counted from the oldest news, so an archive page never changes once complete while news are only
+ * added.  Each archive page is identified by a cursor of its newest news, made from its <code>pubDate</code>, page,
+ * and id.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedArchive {
+
+  /**
+   * The query parameter of the cursor of an archive page.
+   */
+  static final String ARCHIVE_PARAM = "archive";
+
+  /**
+   * The namespace of <a href="https://datatracker.ietf.org/doc/html/rfc5005">RFC 5005</a> feed history.
+   */
+  static final String FH_NS = "http://purl.org/syndication/history/1.0";
+
+  private static final String ALGORITHM = "SHA-256";
+
+  /**
+   * The number of bytes of the digest of the page and id used in the cursor.
+   */
+  private static final int CURSOR_BYTES = 9;
+
+  /**
+   * The pattern of a cursor, which is the <code>pubDate</code> in milliseconds and the base64url encoded digest.
+   */
+  static final String CURSOR_PATTERN = "[0-9]+-[0-9A-Za-z_-]{" + ((CURSOR_BYTES * 4 + 2) / 3) + "}";
+
+  private static final Pattern CURSOR = Pattern.compile(CURSOR_PATTERN);
+
+  /**
+   * Gets the cursor identifying a news, which only contains characters that do not require encoding in a URL.
+   */
+  static String getCursor(News news) {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(ALGORITHM + " is required by all Java platforms", e);
+    }
+    byte[] digest = md.digest(
+        (news.getPage().getPageRef().getServletPath() + '#' + news.getId()).getBytes(StandardCharsets.UTF_8)
+    );
+    return Long.toString(news.getPubDate().toInstant().toEpochMilli()) + '-'
+        + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, CURSOR_BYTES));
+  }
+
+  /**
+   * Gets the requested archive cursor.
+   *
+   * @return  the cursor, the empty string when the query string is not a valid archive request,
+   *          or {@code null} when there is no query string
+   */
+  static String getRequestedCursor(HttpServletRequest req) {
+    String queryString = req.getQueryString();
+    if (queryString == null) {
+      return null;
+    }
+    String prefix = ARCHIVE_PARAM + '=';
+    if (queryString.startsWith(prefix)) {
+      String cursor = queryString.substring(prefix.length());
+      if (CURSOR.matcher(cursor).matches()) {
+        return cursor;
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Pages the news.
+   *
+   * @param  allNews  all news, sorted with the newest first
+   * @param  cursor  the cursor of the archive page or {@code null} for the current feed
+   *
+   * @return  the page or {@code null} when the cursor is not an archive page
+   */
+  static FeedArchive of(List<News> allNews, int maxItems, String cursor) {
+    final int total = allNews.size();
+    if (cursor == null) {
+      if (total <= maxItems) {
+        return new FeedArchive(allNews, null, null, null);
+      }
+      // The archive page containing the newest news not in the current feed
+      int prevPage = (total - maxItems - 1) / maxItems;
+      return new FeedArchive(
+          allNews.subList(0, maxItems),
+          null,
+          getCursor(allNews.get(total - (prevPage + 1) * maxItems)),
+          null
+      );
+    }
+    for (int i = 0; i < total; i++) {
+      if (cursor.equals(getCursor(allNews.get(i)))) {
+        // Must be the newest news of a complete archive page
+        if ((total - i) % maxItems != 0) {
+          return null;
+        }
+        int prev = i + maxItems;
+        int next = i - maxItems;
+        return new FeedArchive(
+            allNews.subList(i, prev),
+            cursor,
+            prev < total ? getCursor(allNews.get(prev)) : null,
+            next >= 0 ? getCursor(allNews.get(next)) : null
+        );
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Pages all the news: the current feed, then every archive page from the newest to the oldest.
+   *
+   * @param  allNews  all news, sorted with the newest first
+   */
+  static List<FeedArchive> all(List<News> allNews, int maxItems) {
+    FeedArchive current = of(allNews, maxItems, null);
+    List<FeedArchive> pages = new ArrayList<>();
+    pages.add(current);
+    if (current.prevArchive != null) {
+      final int total = allNews.size();
+      // The same archive pages as found by cursor, without searching for each
+      for (int i = total - ((total - maxItems - 1) / maxItems + 1) * maxItems; i < total; i += maxItems) {
+        int prev = i + maxItems;
+        int next = i - maxItems;
+        pages.add(new FeedArchive(
+            allNews.subList(i, prev),
+            getCursor(allNews.get(i)),
+            prev < total ? getCursor(allNews.get(prev)) : null,
+            next >= 0 ? getCursor(allNews.get(next)) : null
+        ));
+      }
+    }
+    return pages;
+  }
+
+  private final List<News> news;
+  private final String archive;
+  private final String prevArchive;
+  private final String nextArchive;
+
+  private FeedArchive(List<News> news, String archive, String prevArchive, String nextArchive) {
+    this.news = news;
+    this.archive = archive;
+    this.prevArchive = prevArchive;
+    this.nextArchive = nextArchive;
+  }
+
+  /**
+   * Gets a page of only the given number of the newest news, with the same links.
+   */
+  FeedArchive newest(int count) {
+    return new FeedArchive(news.subList(0, count), archive, prevArchive, nextArchive);
+  }
+
+  /**
+   * The news in this page, sorted with the newest first.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Already unmodifiable
+  List<News> getNews() {
+    return news;
+  }
+
+  /**
+   * The cursor of this archive page or {@code null} for the current feed.
+   */
+  String getArchive() {
+    return archive;
+  }
+
+  /**
+   * The cursor of the next older archive page or {@code null} when none.
+   */
+  String getPrevArchive() {
+    return prevArchive;
+  }
+
+  /**
+   * The cursor of the next newer archive page or {@code null} when none, including when the current feed is
+   * newer.
+   */
+  String getNextArchive() {
+    return nextArchive;
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.PageRef;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bounded in-memory cache of fully encoded feeds, each with a precompressed gzip copy.
+ *
+ * <p>Entries are least-recently-used evicted when either the maximum number of entries or the maximum total
+ * number of bytes is exceeded.  An entry is only returned while its entity tag still matches the current state
+ * of the news, which is derived from the news <code>pubDate</code>, the modification times of the resources
+ * involved, and the news identities.  Outdated entries are kept until replaced, so they may still be served
+ * stale for a grace period while being re-rendered.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedCache {
+
+  /**
+   * The default maximum number of feeds to cache.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  /**
+   * The default maximum total bytes of all cached feeds.
+   */
+  static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * Identifies one rendered feed.
+   * The URL base (scheme, host, port, and context path) is part of the key since all links are absolute.
+   */
+  static final class Key {
+
+    private final PageRef pageRef;
+    private final String view;
+    private final String archive;
+    private final FeedFormat format;
+    private final String urlBase;
+
+    /**
+     * @param  archive  the cursor of the archive page or {@code null} for the current feed
+     */
+    Key(PageRef pageRef, String view, String archive, FeedFormat format, String urlBase) {
+      this.pageRef = pageRef;
+      this.view = view;
+      this.archive = archive;
+      this.format = format;
+      this.urlBase = urlBase;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          pageRef.equals(other.pageRef)
+              && view.equals(other.view)
+              && Objects.equals(archive, other.archive)
+              && format == other.format
+              && urlBase.equals(other.urlBase);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = pageRef.hashCode();
+      hash = hash * 31 + view.hashCode();
+      hash = hash * 31 + Objects.hashCode(archive);
+      hash = hash * 31 + format.hashCode();
+      hash = hash * 31 + urlBase.hashCode();
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return urlBase + pageRef.getServletPath() + format.getExtension() + "?view=" + view
+          + (archive == null ? "" : ("&" + FeedArchive.ARCHIVE_PARAM + '=' + archive));
+    }
+  }
+
+  /**
+   * A cached feed, along with its gzip-compressed copy.
+   */
+  static final class Feed {
+
+    private final String etag;
+    private final long lastModified;
+    private final byte[] bytes;
+    private final byte[] gzipBytes;
+
+    /**
+     * The time this feed was first found outdated, {@code 0} while current.
+     */
+    private volatile long staleSince;
+
+    private Feed(String etag, long lastModified, byte[] bytes, byte[] gzipBytes) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.bytes = bytes;
+      this.gzipBytes = gzipBytes;
+    }
+
+    /**
+     * The entity tag of the identity representation.
+     */
+    String getEtag() {
+      return etag;
+    }
+
+    /**
+     * The last modified time of the feed, {@code -1} when unknown.
+     */
+    long getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * The encoded feed.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Not copying for performance
+    byte[] getBytes() {
+      return bytes;
+    }
+
+    /**
+     * The gzip-compressed encoded feed.
+     */
+    @SuppressWarnings("ReturnOfCollectionOrArrayField") // Not copying for performance
+    byte[] getGzipBytes() {
+      return gzipBytes;
+    }
+
+    private long getSize() {
+      return (long) bytes.length + gzipBytes.length;
+    }
+  }
+
+  /**
+   * Compresses a feed with gzip.
+   */
+  static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+      out.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException("ByteArrayOutputStream does not throw IOException", e);
+    }
+    return buffer.toByteArray();
+  }
+
+  private final int maxEntries;
+  private final long maxBytes;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<Key, Feed> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long totalBytes;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  FeedCache(int maxEntries, long maxBytes) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries < 0: " + maxEntries);
+    }
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maxBytes < 0: " + maxBytes);
+    }
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Gets the cached feed when its entity tag still matches.
+   * An outdated feed is kept, marked stale.
+   *
+   * @return  the feed or {@code null} when not cached or outdated
+   */
+  Feed get(Key key, String etag) {
+    Feed feed;
+    synchronized (entries) {
+      feed = entries.get(key);
+    }
+    if (feed != null) {
+      if (feed.etag.equals(etag)) {
+        // Current again, such as after a failure
+        feed.staleSince = 0;
+      } else {
+        if (feed.staleSince == 0) {
+          feed.staleSince = System.currentTimeMillis();
+        }
+        feed = null;
+      }
+    }
+    if (feed == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return feed;
+  }
+
+  /**
+   * Gets the cached feed when it was current as of its most recent request, without counting a hit or miss.
+   *
+   * @return  the feed or {@code null} when not cached or found outdated
+   */
+  Feed peek(Key key) {
+    Feed feed;
+    synchronized (entries) {
+      feed = entries.get(key);
+    }
+    return (feed == null || feed.staleSince != 0) ? null : feed;
+  }
+
+  /**
+   * Gets the cached feed, whether current or not, while within the grace period since it was first found
+   * outdated.  A feed not yet found outdated is marked stale now, such as when its current state cannot be
+   * determined.
+   *
+   * @param  graceMillis  the grace period in milliseconds
+   *
+   * @return  the feed or {@code null} when not cached or stale for longer than the grace period
+   */
+  Feed getStale(Key key, long graceMillis) {
+    Feed feed;
+    synchronized (entries) {
+      feed = entries.get(key);
+    }
+    if (feed != null) {
+      long now = System.currentTimeMillis();
+      long staleSince = feed.staleSince;
+      if (staleSince == 0) {
+        feed.staleSince = staleSince = now;
+      }
+      if (now - staleSince > graceMillis) {
+        feed = null;
+      }
+    }
+    return feed;
+  }
+
+  /**
+   * Compresses and caches a feed, evicting least-recently-used feeds as needed.
+   * Feeds larger than the maximum total bytes are not cached, but are still returned.
+   *
+   * @param  lastModified  the last modified time of the feed, {@code -1} when unknown
+   */
+  Feed put(Key key, String etag, long lastModified, byte[] bytes) {
+    Feed feed = new Feed(etag, lastModified, bytes, gzip(bytes));
+    long size = feed.getSize();
+    if (maxEntries != 0 && size <= maxBytes) {
+      synchronized (entries) {
+        Feed old = entries.put(key, feed);
+        if (old != null) {
+          totalBytes -= old.getSize();
+        }
+        totalBytes += size;
+        Iterator<Feed> iter = entries.values().iterator();
+        while (
+            (entries.size() > maxEntries || totalBytes > maxBytes)
+                && iter.hasNext()
+        ) {
+          Feed eldest = iter.next();
+          iter.remove();
+          totalBytes -= eldest.getSize();
+        }
+      }
+    }
+    return feed;
+  }
+
+  /**
+   * Removes all cached feeds.
+   */
+  void clear() {
+    synchronized (entries) {
+      entries.clear();
+      totalBytes = 0;
+    }
+  }
+
+  /**
+   * The number of feeds served from the cache.
+   */
+  long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * The number of feeds not in the cache or outdated, including those then served stale.
+   */
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * The number of feeds currently cached.
+   */
+  int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * The total bytes of all feeds currently cached, including their compressed copies.
+   */
+  long getTotalBytes() {
+    synchronized (entries) {
+      return totalBytes;
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The format-neutral model of one feed, built once from the page and its news, then written by any
+ * {@link FeedFormat}.
+ *
+ * <p>Optional values are {@code null} when not provided.  All URLs are absolute and already RFC 3986 encoded.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedChannel {
+
+  /**
+   * An item in this feed, with its source when from a different page than the feed.
+   */
+  static final class Entry {
+
+    private final FeedItem item;
+    private final String sourceUrl;
+    private final String sourceTitle;
+
+    Entry(FeedItem item, String sourceUrl, String sourceTitle) {
+      this.item = item;
+      this.sourceUrl = sourceUrl;
+      this.sourceTitle = sourceTitle;
+    }
+
+    FeedItem getItem() {
+      return item;
+    }
+
+    /**
+     * The URL of the feed, in the same format, of the page the news is on, or {@code null} when the same page as
+     * this feed.
+     */
+    String getSourceUrl() {
+      return sourceUrl;
+    }
+
+    String getSourceTitle() {
+      return sourceTitle;
+    }
+  }
+
+  /**
+   * The optional channel image.
+   */
+  static final class Image {
+
+    private final String url;
+    private final String width;
+    private final String height;
+    private final String description;
+
+    Image(String url, String width, String height, String description) {
+      this.url = url;
+      this.width = width;
+      this.height = height;
+      this.description = description;
+    }
+
+    String getUrl() {
+      return url;
+    }
+
+    String getWidth() {
+      return width;
+    }
+
+    String getHeight() {
+      return height;
+    }
+
+    String getDescription() {
+      return description;
+    }
+  }
+
+  private final ChannelConfig config;
+  private final String title;
+  private final String link;
+  private final String feedUrl;
+  private final String hub;
+  private final String description;
+  private final String copyright;
+  private final Instant lastBuildDate;
+  private final Image image;
+  private final boolean archive;
+  private final String currentUrl;
+  private final String prevArchiveUrl;
+  private final String nextArchiveUrl;
+  private final List<Entry> entries;
+
+  FeedChannel(
+      ChannelConfig config,
+      String title,
+      String link,
+      String feedUrl,
+      String hub,
+      String description,
+      String copyright,
+      Instant lastBuildDate,
+      Image image,
+      boolean archive,
+      String currentUrl,
+      String prevArchiveUrl,
+      String nextArchiveUrl,
+      List<Entry> entries
+  ) {
+    this.config = config;
+    this.title = title;
+    this.link = link;
+    this.feedUrl = feedUrl;
+    this.hub = hub;
+    this.description = description;
+    this.copyright = copyright;
+    this.lastBuildDate = lastBuildDate;
+    this.image = image;
+    this.archive = archive;
+    this.currentUrl = currentUrl;
+    this.prevArchiveUrl = prevArchiveUrl;
+    this.nextArchiveUrl = nextArchiveUrl;
+    this.entries = entries;
+  }
+
+  /**
+   * The configuration of the book of the feed.
+   */
+  ChannelConfig getConfig() {
+    return config;
+  }
+
+  String getTitle() {
+    return title;
+  }
+
+  /**
+   * The URL of the page of the feed.
+   */
+  String getLink() {
+    return link;
+  }
+
+  /**
+   * The URL of this feed, including any archive cursor.
+   */
+  String getFeedUrl() {
+    return feedUrl;
+  }
+
+  String getDescription() {
+    return description;
+  }
+
+  /**
+   * The WebSub hub of the current feed, {@code null} when none, when WebSub is not enabled, or an archive page.
+   */
+  String getHub() {
+    return archive ? null : hub;
+  }
+
+  String getCopyright() {
+    return copyright;
+  }
+
+  /**
+   * The <code>pubDate</code> of the newest news or {@code null} when there are no news.
+   */
+  Instant getLastBuildDate() {
+    return lastBuildDate;
+  }
+
+  Image getImage() {
+    return image;
+  }
+
+  /**
+   * Is this an archive page, per RFC 5005?
+   */
+  boolean isArchive() {
+    return archive;
+  }
+
+  /**
+   * The URL of the current feed for archive pages, {@code null} for the current feed.
+   */
+  String getCurrentUrl() {
+    return currentUrl;
+  }
+
+  String getPrevArchiveUrl() {
+    return prevArchiveUrl;
+  }
+
+  String getNextArchiveUrl() {
+    return nextArchiveUrl;
+  }
+
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Already unmodifiable
+  List<Entry> getEntries() {
+    return entries;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.aoapps.servlet.ServletContextCache;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Delta feeds, per
+ * <a href="https://datatracker.ietf.org/doc/html/rfc3229">RFC 3229: Delta encoding in HTTP</a> with the
+ * <a href="http://bobwyman.pubsub.com/main/2004/09/using_rfc3229_w.html">"feed" instance-manipulation</a>.
+ *
+ * <p>When a request has <code>A-IM: feed</code> and an <code>If-None-Match</code> of an earlier version of the feed,
+ * only the news newer than that version are sent, with <code>226 IM Used</code>.  The newest news of each version is
+ * found from the cursor at the end of its {@link FeedETag entity tag}.  When the earlier version is unknown, has no
+ * newer news, or the page of any news it already has may have been modified since the <code>If-Modified-Since</code>
+ * sent along with it, the entire feed is sent as usual, so edits to older news are not lost.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedDelta {
+
+  /** Make no instances. */
+  private FeedDelta() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The instance-manipulation of delta feeds.
+   */
+  static final String FEED_IM = "feed";
+
+  /**
+   * The status code of <code>226 IM Used</code>.
+   */
+  static final int SC_IM_USED = 226;
+
+  private static final Pattern ETAG_CURSOR = Pattern.compile("\\.(" + FeedArchive.CURSOR_PATTERN + ")");
+
+  /**
+   * Checks if the request accepts the "feed" instance-manipulation.
+   */
+  static boolean acceptsFeed(HttpServletRequest req) {
+    String aim = req.getHeader("A-IM");
+    if (aim == null) {
+      return false;
+    }
+    for (String im : aim.split(",")) {
+      int semicolon = im.indexOf(';');
+      if (semicolon != -1) {
+        im = im.substring(0, semicolon);
+      }
+      if (FEED_IM.equalsIgnoreCase(im.trim())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the number of news newer than the version of the feed in the <code>If-None-Match</code> of the request.
+   *
+   * @param  rssNews  the news of the current version, sorted with the newest first
+   *
+   * @return  the number of newer news or {@code -1} when no earlier version is found
+   */
+  static int getNewerCount(HttpServletRequest req, List<News> rssNews) {
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch == null) {
+      return -1;
+    }
+    int newer = -1;
+    for (String candidate : ifNoneMatch.split(",")) {
+      Matcher matcher = ETAG_CURSOR.matcher(candidate);
+      if (matcher.find()) {
+        String cursor = matcher.group(1);
+        int size = rssNews.size();
+        for (int i = 0; i < size; i++) {
+          if (cursor.equals(FeedArchive.getCursor(rssNews.get(i)))) {
+            // The fewest newer news of all versions the client has
+            if (newer == -1 || i < newer) {
+              newer = i;
+            }
+            break;
+          }
+        }
+      }
+    }
+    return newer;
+  }
+
+  /**
+   * Checks if the page of any news the client already has may have been modified since its version of the feed, from
+   * the <code>If-Modified-Since</code> sent along with the <code>If-None-Match</code> of that version.
+   *
+   * @param  rssNews  the news of the current version, sorted with the newest first
+   * @param  newer  the number of newer news, as found by {@link #getNewerCount(jakarta.servlet.http.HttpServletRequest, java.util.List)}
+   *
+   * @return  {@code true} when modified or unknown
+   */
+  static boolean isOlderModified(ServletContext servletContext, HttpServletRequest req, List<News> rssNews, int newer) {
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = req.getDateHeader("If-Modified-Since");
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+    if (ifModifiedSince == -1) {
+      return true;
+    }
+    PageRef lastPageRef = null;
+    for (News news : rssNews.subList(newer, rssNews.size())) {
+      PageRef newsPageRef = news.getPage().getPageRef();
+      // News from the same page are typically adjacent
+      if (!newsPageRef.equals(lastPageRef)) {
+        long lastModified = ServletContextCache.getLastModified(servletContext, newsPageRef.getServletPath());
+        if (lastModified == 0 || lastModified / 1000 > ifModifiedSince / 1000) {
+          return true;
+        }
+        lastPageRef = newsPageRef;
+      }
+    }
+    return false;
+  }
+}
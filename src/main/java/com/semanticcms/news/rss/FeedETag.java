@@ -0,0 +1,217 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.aoapps.servlet.ServletContextCache;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.news.model.News;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Strong entity tags for feeds, computed from a digest of the inputs of the feed so that conditional requests
+ * may be answered before any item bodies are rendered.
+ *
+ * <p>The inputs are the URL base, the page and the modification time of its resource, the view, the format, the
+ * RSS book parameters, the project version, the archive page and its links, and, for each news, its page, id,
+ * <code>pubDate</code>, and the modification time of its page resource.  Any edit to a news body, title, or
+ * description changes the modification time of its page resource.</p>
+ *
+ * <p>When the modification time of any of these resources is unknown, an edit could go unnoticed, so the digest also
+ * includes a nonce chosen once per start of the application.  Such an entity tag is still strong for the life of the
+ * application, but it {@linkplain #isPerStart(java.lang.String) is marked} so that the feed is not persisted to the
+ * {@link FeedStore} beyond it.</p>
+ *
+ * <p>The entity tag ends with the {@linkplain FeedArchive#getCursor(com.semanticcms.news.model.News) cursor} of the
+ * newest news, so that a later request can find which news are newer, as used by {@link FeedDelta}.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedETag {
+
+  /** Make no instances. */
+  private FeedETag() {
+    throw new AssertionError();
+  }
+
+  private static final String ALGORITHM = "SHA-256";
+
+  /**
+   * The number of bytes of the digest used in the entity tag.
+   */
+  private static final int ETAG_BYTES = 18;
+
+  /**
+   * The prefix, inside the quotes, of entity tags that include the {@link #NONCE}.
+   * Not in the alphabet of URL-safe Base64.
+   */
+  private static final char PER_START_PREFIX = '~';
+
+  /**
+   * The nonce included in the digest when any modification time is unknown, chosen once per start.
+   */
+  private static final byte[] NONCE = new byte[16];
+
+  static {
+    new SecureRandom().nextBytes(NONCE);
+  }
+
+  /**
+   * Computes the strong entity tag, including the surrounding quotes.
+   */
+  static String compute(
+      ServletContext servletContext,
+      String urlBase,
+      PageRef pageRef,
+      String view,
+      FeedFormat format,
+      Map<String, String> rssParams,
+      FeedArchive archive
+  ) {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(ALGORITHM + " is required by all Java platforms", e);
+    }
+    update(md, Maven.properties.getProperty("project.version"));
+    update(md, urlBase);
+    update(md, pageRef.getServletPath());
+    // The channel title, description, and copyright come from the page
+    long pageLastModified = ServletContextCache.getLastModified(servletContext, pageRef.getServletPath());
+    boolean unknown = pageLastModified == 0;
+    update(md, pageLastModified);
+    update(md, view);
+    update(md, format.name());
+    // Sorted for a stable digest
+    for (Map.Entry<String, String> entry : new TreeMap<>(rssParams).entrySet()) {
+      update(md, entry.getKey());
+      update(md, entry.getValue());
+    }
+    update(md, archive.getArchive());
+    update(md, archive.getPrevArchive());
+    update(md, archive.getNextArchive());
+    List<News> rssNews = archive.getNews();
+    update(md, rssNews.size());
+    PageRef lastPageRef = null;
+    long lastModified = 0;
+    for (News news : rssNews) {
+      PageRef newsPageRef = news.getPage().getPageRef();
+      // News from the same page are typically adjacent
+      if (!newsPageRef.equals(lastPageRef)) {
+        lastModified = ServletContextCache.getLastModified(servletContext, newsPageRef.getServletPath());
+        if (lastModified == 0) {
+          unknown = true;
+        }
+        lastPageRef = newsPageRef;
+      }
+      update(md, newsPageRef.getServletPath());
+      update(md, news.getId());
+      update(md, news.getPubDate().toInstant().toEpochMilli());
+      update(md, lastModified);
+    }
+    if (unknown) {
+      md.update(NONCE);
+    }
+    byte[] digest = md.digest();
+    return '"' + (unknown ? String.valueOf(PER_START_PREFIX) : "") + Base64.getUrlEncoder().withoutPadding().encodeToString(
+        digest.length > ETAG_BYTES ? Arrays.copyOf(digest, ETAG_BYTES) : digest
+    ) + (rssNews.isEmpty() ? "" : ("." + FeedArchive.getCursor(rssNews.get(0)))) + '"';
+  }
+
+  /**
+   * Checks if an entity tag includes the per-start nonce, because the modification time of some input was unknown.
+   * Such a feed must not outlive the application.
+   */
+  static boolean isPerStart(String etag) {
+    return etag.length() > 1 && etag.charAt(1) == PER_START_PREFIX;
+  }
+
+  private static void update(MessageDigest md, String value) {
+    if (value == null) {
+      update(md, -1);
+    } else {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      update(md, bytes.length);
+      md.update(bytes);
+    }
+  }
+
+  private static void update(MessageDigest md, long value) {
+    for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+      md.update((byte) (value >>> shift));
+    }
+  }
+
+  /**
+   * Gets the entity tag for a content-coded representation, since a strong entity tag must differ per
+   * content coding.
+   *
+   * @param  etag  the entity tag of the identity representation
+   */
+  static String forContentCoding(String etag, String contentCoding) {
+    return etag.substring(0, etag.length() - 1) + '-' + contentCoding + '"';
+  }
+
+  /**
+   * Checks if the request has an <code>If-None-Match</code> header matching the given entity tag
+   * of the identity representation or any of its content-coded representations.
+   * Uses the weak comparison function, as required for <code>If-None-Match</code>.
+   *
+   * @param  etag  the entity tag of the identity representation
+   */
+  static boolean matchesIfNoneMatch(HttpServletRequest req, String etag) {
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (
+          "*".equals(candidate)
+              || etag.equals(candidate)
+              || (
+                  // Content-coded representations are semantically the same
+                  candidate.startsWith(etag.substring(0, etag.length() - 1) + '-')
+                      && candidate.endsWith("\"")
+              )
+      ) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
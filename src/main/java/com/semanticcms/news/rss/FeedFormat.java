@@ -0,0 +1,126 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.Page;
+import com.semanticcms.news.servlet.RssUtils;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * The formats each feed is available in, by extension.  All formats are written from the same
+ * {@link FeedChannel} model, so the capture work and rendered items are shared between them.
+ *
+ * @author  AO Industries, Inc.
+ */
+enum FeedFormat {
+
+  /**
+   * <a href="https://cyber.harvard.edu/rss/rss.html">RSS 2.0</a>.
+   */
+  RSS(RssUtils.EXTENSION, RssUtils.CONTENT_TYPE) {
+    @Override
+    void write(FeedChannel channel, PrintWriter out) throws IOException {
+      RssSerializer.write(channel, out);
+    }
+  },
+
+  /**
+   * <a href="https://datatracker.ietf.org/doc/html/rfc4287">Atom 1.0</a>.
+   */
+  ATOM(FeedFormat.ATOM_EXTENSION, "application/atom+xml") {
+    @Override
+    void write(FeedChannel channel, PrintWriter out) throws IOException {
+      AtomSerializer.write(channel, out);
+    }
+  },
+
+  /**
+   * <a href="https://www.jsonfeed.org/version/1.1/">JSON Feed 1.1</a>.
+   */
+  JSON_FEED(FeedFormat.JSON_FEED_EXTENSION, "application/feed+json") {
+    @Override
+    void write(FeedChannel channel, PrintWriter out) throws IOException {
+      JsonFeedSerializer.write(channel, out);
+    }
+  };
+
+  /**
+   * The extension of Atom feeds.
+   */
+  static final String ATOM_EXTENSION = ".atom";
+
+  /**
+   * The extension of JSON Feed feeds.
+   * Not <code>.json</code>, which would map every JSON resource to the servlet.
+   */
+  static final String JSON_FEED_EXTENSION = ".jsonfeed";
+
+  /**
+   * Gets the format of a feed path.
+   *
+   * @return  the format or {@code null} when not a feed path
+   */
+  static FeedFormat forServletPath(String servletPath) {
+    for (FeedFormat format : values()) {
+      if (servletPath.endsWith(format.extension)) {
+        return format;
+      }
+    }
+    return null;
+  }
+
+  private final String extension;
+  private final String contentType;
+
+  private FeedFormat(String extension, String contentType) {
+    this.extension = extension;
+    this.contentType = contentType;
+  }
+
+  String getExtension() {
+    return extension;
+  }
+
+  String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * Gets the path of the feed of a page in this format.
+   */
+  String getServletPath(Page page) {
+    String rssServletPath = RssUtils.getRssServletPath(page);
+    if (this == RSS) {
+      return rssServletPath;
+    }
+    assert rssServletPath.endsWith(RssUtils.EXTENSION);
+    return rssServletPath.substring(0, rssServletPath.length() - RssUtils.EXTENSION.length()) + extension;
+  }
+
+  /**
+   * Writes a feed in this format.
+   */
+  abstract void write(FeedChannel channel, PrintWriter out) throws IOException;
+}
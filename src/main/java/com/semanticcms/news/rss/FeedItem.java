@@ -0,0 +1,118 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.time.Instant;
+
+/**
+ * One news item of the format-neutral feed model, depending only on the news itself and not on the feed it is part
+ * of.  Items are shared between overlapping feeds and all formats.
+ *
+ * <p>All URLs are absolute and already RFC 3986 encoded.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedItem {
+
+  private final String title;
+  private final String link;
+  private final String description;
+  private final String contentXml;
+  private final String contentHtml;
+  private final String guid;
+  private final Instant pubDate;
+
+  /**
+   * @param  description  the plain-text description of the news or {@code null} for none
+   * @param  contentXml  the HTML content, already encoded as XML text, or {@code null} for none
+   */
+  FeedItem(String title, String link, String description, String contentXml, String guid, Instant pubDate) {
+    this.title = title;
+    this.link = link;
+    this.description = description;
+    this.contentXml = contentXml;
+    // Decoded once for JSON Feed, the same instance when there is nothing to decode
+    this.contentHtml = (contentXml == null) ? null : JsonFeedSerializer.decodeXml(contentXml);
+    this.guid = guid;
+    this.pubDate = pubDate;
+  }
+
+  String getTitle() {
+    return title;
+  }
+
+  /**
+   * The URL of the news target.
+   */
+  String getLink() {
+    return link;
+  }
+
+  /**
+   * The plain-text description of the news or {@code null} for none.
+   */
+  String getDescription() {
+    return description;
+  }
+
+  /**
+   * The HTML content, including the description and the news body, already encoded as XML text so it may be
+   * written directly into XML-based formats.  {@code null} when there is no description and no body.
+   */
+  String getContentXml() {
+    return contentXml;
+  }
+
+  /**
+   * The HTML content, decoded from {@link #getContentXml()} for formats that are not XML.
+   * {@code null} when there is no description and no body.
+   */
+  String getContentHtml() {
+    return contentHtml;
+  }
+
+  /**
+   * The permanent, unique URL of the news itself.
+   */
+  String getGuid() {
+    return guid;
+  }
+
+  Instant getPubDate() {
+    return pubDate;
+  }
+
+  /**
+   * The approximate number of characters held by this item.
+   */
+  @SuppressWarnings("StringEquality") // The decoded content is only held separately when a different instance
+  long getSize() {
+    return (long) title.length()
+        + link.length()
+        + (description == null ? 0 : description.length())
+        + (contentXml == null ? 0 : contentXml.length())
+        + (contentHtml == contentXml ? 0 : contentHtml.length())
+        + guid.length();
+  }
+}
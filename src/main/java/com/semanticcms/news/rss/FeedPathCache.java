@@ -0,0 +1,138 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.PageRef;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of the page each feed path resolves to, including the paths that resolve to no page.
+ *
+ * <p>A feed path is resolved by probing the resources of each page extension and finding its book.  Since the
+ * resources may be added or removed at any time, each resolution is only reused for a limited time.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedPathCache {
+
+  /**
+   * The default maximum number of paths to cache.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  /**
+   * The default seconds a resolution is reused.
+   */
+  static final int DEFAULT_TTL = 60;
+
+  private static final class Resolution {
+
+    /**
+     * The page or {@code null} when the path does not resolve to a page.
+     */
+    private final PageRef pageRef;
+    private final long expiresNanos;
+
+    private Resolution(PageRef pageRef, long expiresNanos) {
+      this.pageRef = pageRef;
+      this.expiresNanos = expiresNanos;
+    }
+  }
+
+  /**
+   * Resolves a feed path to its page.
+   */
+  @FunctionalInterface
+  interface Resolver {
+    /**
+     * @return  the page or {@code null} when not found
+     */
+    PageRef resolve(String basePath);
+  }
+
+  private final int maxEntries;
+  private final long ttlNanos;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<String, Resolution> resolutions = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Resolution> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  /**
+   * @param  ttl  the seconds a resolution is reused
+   */
+  FeedPathCache(int maxEntries, int ttl) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries < 0: " + maxEntries);
+    }
+    if (ttl < 0) {
+      throw new IllegalArgumentException("ttl < 0: " + ttl);
+    }
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttl * 1000000000L;
+  }
+
+  /**
+   * Gets the page of a feed path, resolving it when not cached or expired.
+   *
+   * @param  basePath  the servlet path of the feed without its extension
+   *
+   * @return  the page or {@code null} when not found
+   */
+  PageRef getPageRef(String basePath, Resolver resolver) {
+    if (maxEntries == 0 || ttlNanos == 0) {
+      return resolver.resolve(basePath);
+    }
+    long now = System.nanoTime();
+    Resolution resolution;
+    synchronized (resolutions) {
+      resolution = resolutions.get(basePath);
+    }
+    if (resolution == null || now - resolution.expiresNanos >= 0) {
+      // Paths that do not resolve are cached, too, so repeated requests for unknown feeds probe no resources
+      resolution = new Resolution(resolver.resolve(basePath), now + ttlNanos);
+      synchronized (resolutions) {
+        resolutions.put(basePath, resolution);
+      }
+    }
+    return resolution.pageRef;
+  }
+
+  /**
+   * Removes all cached resolutions.
+   */
+  void clear() {
+    synchronized (resolutions) {
+      resolutions.clear();
+    }
+  }
+}
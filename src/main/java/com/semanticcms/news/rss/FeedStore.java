@@ -0,0 +1,280 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores rendered feeds as files on disk, where they survive restarts and are not limited by the heap.
+ *
+ * <p>Each feed is stored in its own directory, named from a digest of its {@link FeedCache.Key}, with one file
+ * per entity tag and content coding.  Since the entity tag is part of the file name, a stored file never changes
+ * once written, and a request only needs to check if the file for the current entity tag exists.  When a new
+ * version is stored, the older versions are removed.</p>
+ *
+ * <p>Stored files are sent with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * without being read into the heap.</p>
+ *
+ * <p>The total bytes of all stored feeds, including those stored before a restart, are limited.  When a put exceeds
+ * the limit, the feeds stored longest ago are removed until a tenth of the limit is free again.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedStore {
+
+  private static final String ALGORITHM = "SHA-256";
+
+  private static final String IDENTITY_SUFFIX = ".feed";
+
+  private static final String GZIP_SUFFIX = ".feed.gz";
+
+  private static final String TEMP_PREFIX = ".tmp-";
+
+  /**
+   * The default maximum total bytes of all stored feeds.
+   */
+  static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+  private final Path directory;
+
+  private final long maxBytes;
+
+  /**
+   * The approximate total bytes of all stored feeds, recounted by each sweep.
+   */
+  private final AtomicLong totalBytes = new AtomicLong();
+
+  private final Object sweepLock = new Object();
+
+  /**
+   * @param  directory  the directory to store feeds in, created when missing
+   * @param  maxBytes  the maximum total bytes of all stored feeds
+   */
+  FeedStore(Path directory, long maxBytes) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.maxBytes = maxBytes;
+    // Counts the feeds stored before a restart, which may have been with a higher limit
+    synchronized (sweepLock) {
+      sweep(maxBytes);
+    }
+  }
+
+  private Path getFeedDirectory(FeedCache.Key key) {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(ALGORITHM + " is required by all Java platforms", e);
+    }
+    return directory.resolve(
+        Base64.getUrlEncoder().withoutPadding().encodeToString(
+            md.digest(key.toString().getBytes(StandardCharsets.UTF_8))
+        )
+    );
+  }
+
+  /**
+   * Gets the file name for an entity tag, which is base64url encoded and only needs its quotes removed.
+   */
+  private static String getFileName(String etag, boolean gzip) {
+    return etag.substring(1, etag.length() - 1) + (gzip ? GZIP_SUFFIX : IDENTITY_SUFFIX);
+  }
+
+  /**
+   * Opens the stored feed when its entity tag still matches.
+   * The file remains readable through the channel even when removed by a concurrent {@link #put(com.semanticcms.news.rss.FeedCache.Key, java.lang.String, com.semanticcms.news.rss.FeedCache.Feed)}.
+   *
+   * @param  gzip  opens the gzip-compressed copy
+   *
+   * @return  the channel or {@code null} when not stored or outdated
+   */
+  FileChannel open(FeedCache.Key key, String etag, boolean gzip) throws IOException {
+    try {
+      return FileChannel.open(getFeedDirectory(key).resolve(getFileName(etag, gzip)), StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Stores a feed and its gzip-compressed copy, then removes any older versions.
+   */
+  void put(FeedCache.Key key, String etag, FeedCache.Feed feed) throws IOException {
+    Path feedDirectory = Files.createDirectories(getFeedDirectory(key));
+    String identityName = getFileName(etag, false);
+    String gzipName = getFileName(etag, true);
+    long added = write(feedDirectory, gzipName, feed.getGzipBytes())
+        + write(feedDirectory, identityName, feed.getBytes());
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(feedDirectory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (!name.equals(identityName) && !name.equals(gzipName) && !name.startsWith(TEMP_PREFIX)) {
+          try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+              added -= size;
+            }
+          } catch (IOException e) {
+            // May still be open for sending on some platforms, removed by the next put
+          }
+        }
+      }
+    }
+    if (totalBytes.addAndGet(added) > maxBytes) {
+      synchronized (sweepLock) {
+        // Already swept by a concurrent put
+        if (totalBytes.get() > maxBytes) {
+          sweep(maxBytes - maxBytes / 10);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a file through a temporary file, so a partially written file is never sent.
+   *
+   * @return  the bytes written or {@code 0} when already stored
+   */
+  private static long write(Path feedDirectory, String name, byte[] bytes) throws IOException {
+    Path file = feedDirectory.resolve(name);
+    if (Files.exists(file)) {
+      return 0;
+    }
+    Path temp = Files.createTempFile(feedDirectory, TEMP_PREFIX, null);
+    try {
+      Files.write(temp, bytes);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return bytes.length;
+  }
+
+  /**
+   * A feed directory found by a sweep.
+   */
+  private static final class Stored {
+
+    private final Path feedDirectory;
+    private final FileTime lastModified;
+    private final long size;
+
+    private Stored(Path feedDirectory, FileTime lastModified, long size) {
+      this.feedDirectory = feedDirectory;
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Recounts the total bytes of all stored feeds, then removes the feeds stored longest ago until no more than
+   * the target bytes remain.  Each put of a new version modifies its feed directory, so the modification time of the
+   * directory is when the feed was last stored.
+   */
+  private void sweep(long targetBytes) throws IOException {
+    assert Thread.holdsLock(sweepLock);
+    List<Stored> stored = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> feedDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+      for (Path feedDirectory : feedDirectories) {
+        long size = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(feedDirectory)) {
+          for (Path file : files) {
+            size += Files.size(file);
+          }
+          stored.add(new Stored(feedDirectory, Files.getLastModifiedTime(feedDirectory), size));
+        } catch (IOException e) {
+          // Removed concurrently, counted by the next sweep
+        }
+        total += size;
+      }
+    }
+    if (total > targetBytes) {
+      stored.sort(Comparator.comparing(s -> s.lastModified));
+      for (Stored oldest : stored) {
+        if (total <= targetBytes) {
+          break;
+        }
+        total -= remove(oldest.feedDirectory);
+      }
+    }
+    totalBytes.set(total);
+  }
+
+  /**
+   * Removes a feed directory and its files.  Files still being sent remain readable through their channels.
+   *
+   * @return  the bytes removed
+   */
+  private static long remove(Path feedDirectory) {
+    long removed = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(feedDirectory)) {
+      for (Path file : files) {
+        try {
+          long size = Files.size(file);
+          if (Files.deleteIfExists(file)) {
+            removed += size;
+          }
+        } catch (IOException e) {
+          // May still be open for sending on some platforms, removed by a later sweep
+        }
+      }
+      Files.deleteIfExists(feedDirectory);
+    } catch (IOException e) {
+      // Not empty or already removed, retried by a later sweep
+    }
+    return removed;
+  }
+
+  /**
+   * Sends an entire stored feed.
+   */
+  static void transferTo(FileChannel channel, OutputStream out) throws IOException {
+    long size = channel.size();
+    WritableByteChannel outChannel = Channels.newChannel(out);
+    long position = 0;
+    while (position < size) {
+      position += channel.transferTo(position, size - position, outChannel);
+    }
+  }
+}
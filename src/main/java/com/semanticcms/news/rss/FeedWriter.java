@@ -0,0 +1,159 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.aoapps.lang.io.Encoder;
+import com.aoapps.net.URIEncoder;
+import com.aoapps.servlet.http.HttpServletUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes absolute, RFC 3986 encoded URLs and dates directly to the output of a feed.
+ *
+ * <p>The absolute URL base is resolved and encoded once per feed, and each URL is built in a reusable buffer.  When URL
+ * encoding adds no per-request information, the buffer is encoded directly into the output.  Otherwise, each URL
+ * goes through {@link HttpServletResponse#encodeURL(java.lang.String)} as before.</p>
+ *
+ * <p>Instances are not thread-safe and are used for a single feed.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class FeedWriter {
+
+  private final HttpServletResponse resp;
+  private final boolean shared;
+
+  /**
+   * The absolute URL of the context path, without any trailing slash.
+   */
+  private final String urlBase;
+
+  /**
+   * The RFC 3986 encoded absolute URL of the context path, without any trailing slash.
+   */
+  private final String encodedUrlBase;
+
+  /**
+   * The reusable buffer for building URLs.
+   */
+  private final StringBuilder buffer = new StringBuilder();
+
+  /**
+   * Gets the absolute URL of the context path of a request, without any trailing slash.
+   */
+  static String getUrlBase(HttpServletRequest req) {
+    String absoluteRoot = HttpServletUtil.getAbsoluteURL(req, "/");
+    return absoluteRoot.substring(0, absoluteRoot.length() - 1);
+  }
+
+  /**
+   * @param  shared  when URL encoding adds no per-request information
+   */
+  FeedWriter(HttpServletRequest req, HttpServletResponse resp, boolean shared) {
+    this(getUrlBase(req), resp, shared);
+  }
+
+  /**
+   * @param  urlBase  the absolute URL of the context path, without any trailing slash
+   * @param  shared  when URL encoding adds no per-request information
+   */
+  FeedWriter(String urlBase, HttpServletResponse resp, boolean shared) {
+    this.resp = resp;
+    this.shared = shared;
+    // The scheme, host, port, and context path are only resolved once per feed
+    this.urlBase = urlBase;
+    this.encodedUrlBase = URIEncoder.encodeURI(urlBase);
+  }
+
+  /**
+   * Writes an absolute URL.
+   *
+   * @param  servletPath  the context-relative path, not yet encoded
+   * @param  view  the view name for the query string, not yet encoded, or {@code null} for none
+   * @param  fragment  the fragment, not yet encoded, or {@code null} for none
+   * @param  encoder  the encoder for the output context or {@code null} for none
+   */
+  void writeUrl(String servletPath, String view, String fragment, Encoder encoder, Appendable out) throws IOException {
+    StringBuilder sb = buffer;
+    sb.setLength(0);
+    if (shared) {
+      sb.append(encodedUrlBase);
+    }
+    URIEncoder.encodeURI(servletPath, sb);
+    if (view != null) {
+      sb.append("?view=");
+      URIEncoder.encodeURIComponent(view, sb);
+    }
+    if (fragment != null) {
+      sb.append('#');
+      URIEncoder.encodeURIComponent(fragment, sb);
+    }
+    if (shared) {
+      // Already RFC 3986 US-ASCII
+      if (encoder == null) {
+        out.append(sb);
+      } else {
+        encoder.append(sb, out);
+      }
+    } else {
+      URIEncoder.encodeURI(// Encode again to force RFC 3986 US-ASCII
+          resp.encodeURL(urlBase + sb),
+          encoder,
+          out
+      );
+    }
+  }
+
+  /**
+   * Gets an absolute URL, for the few places the URL is used more than once.
+   *
+   * @see  #writeUrl(java.lang.String, java.lang.String, java.lang.String, com.aoapps.lang.io.Encoder, java.lang.Appendable)
+   */
+  String getUrl(String servletPath, String view, String fragment) throws IOException {
+    StringBuilder url = new StringBuilder();
+    writeUrl(servletPath, view, fragment, null, url);
+    return url.toString();
+  }
+
+  /**
+   * Writes a date in RFC 1123 format.
+   * The format only contains characters that do not require encoding in XML.
+   */
+  static void writeDate(Instant date, Appendable out) {
+    DateTimeFormatter.RFC_1123_DATE_TIME.formatTo(date.atZone(ZoneOffset.UTC), out);
+  }
+
+  /**
+   * Writes a date in RFC 3339 format, as used by Atom and JSON Feed.
+   * The format only contains characters that do not require encoding in XML or JSON.
+   */
+  static void writeIsoDate(Instant date, Appendable out) {
+    DateTimeFormatter.ISO_INSTANT.formatTo(date, out);
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.PageRef;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of built news items.
+ *
+ * <p>An item is everything in a feed entry that depends only on the news itself, and not on the feed or format it
+ * is part of.  Overlapping feeds, such as a parent page and its children, and the different formats of a feed share
+ * the same items, and a new news only requires building its own item.</p>
+ *
+ * <p>Each item is valid while the modification time of its page resource is unchanged.  News on a page
+ * with an unknown modification time are not cached.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class ItemCache {
+
+  /**
+   * The default maximum number of items to cache.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  /**
+   * The default maximum total characters of all cached items.
+   */
+  static final long DEFAULT_MAX_CHARS = 32L * 1024 * 1024;
+
+  /**
+   * Identifies one news item.
+   * The URL base (scheme, host, port, and context path) is part of the key since all links are absolute.
+   * The item content is part of the key since news may be in the feeds of books with different settings.
+   */
+  static final class Key {
+
+    private final PageRef pageRef;
+    private final String newsId;
+    private final String urlBase;
+    private final ItemContent itemContent;
+    private final int truncateLength;
+
+    /**
+     * @param  truncateLength  the maximum number of text characters of the body, or {@code 0} when not truncated
+     */
+    Key(PageRef pageRef, String newsId, String urlBase, ItemContent itemContent, int truncateLength) {
+      this.pageRef = pageRef;
+      this.newsId = newsId;
+      this.urlBase = urlBase;
+      this.itemContent = itemContent;
+      this.truncateLength = truncateLength;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          pageRef.equals(other.pageRef)
+              && newsId.equals(other.newsId)
+              && urlBase.equals(other.urlBase)
+              && itemContent == other.itemContent
+              && truncateLength == other.truncateLength;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = pageRef.hashCode();
+      hash = hash * 31 + newsId.hashCode();
+      hash = hash * 31 + urlBase.hashCode();
+      hash = hash * 31 + itemContent.hashCode();
+      hash = hash * 31 + truncateLength;
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return urlBase + pageRef.getServletPath() + '#' + newsId + " (" + itemContent
+          + (truncateLength == 0 ? "" : (" " + truncateLength)) + ')';
+    }
+  }
+
+  private static final class Entry {
+
+    private final long lastModified;
+    private final FeedItem item;
+    private final long size;
+
+    private Entry(long lastModified, FeedItem item) {
+      this.lastModified = lastModified;
+      this.item = item;
+      this.size = item.getSize();
+    }
+  }
+
+  private final int maxEntries;
+  private final long maxChars;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long totalChars;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  ItemCache(int maxEntries, long maxChars) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries < 0: " + maxEntries);
+    }
+    if (maxChars < 0) {
+      throw new IllegalArgumentException("maxChars < 0: " + maxChars);
+    }
+    this.maxEntries = maxEntries;
+    this.maxChars = maxChars;
+  }
+
+  /**
+   * Gets the cached item when its page resource is unmodified.
+   *
+   * @param  lastModified  the current modification time of the page resource, {@code 0} when unknown
+   *
+   * @return  the item or {@code null} when not cached or outdated
+   */
+  FeedItem get(Key key, long lastModified) {
+    if (lastModified == 0) {
+      return null;
+    }
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry != null && entry.lastModified != lastModified) {
+        entries.remove(key);
+        totalChars -= entry.size;
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    } else {
+      hits.incrementAndGet();
+      return entry.item;
+    }
+  }
+
+  /**
+   * Caches an item, evicting least-recently-used items as needed.
+   *
+   * @param  lastModified  the modification time of the page resource the item was built from,
+   *                       {@code 0} when unknown and not cached
+   */
+  void put(Key key, long lastModified, FeedItem item) {
+    Entry entry = new Entry(lastModified, item);
+    if (lastModified == 0 || maxEntries == 0 || entry.size > maxChars) {
+      return;
+    }
+    synchronized (entries) {
+      Entry old = entries.put(key, entry);
+      if (old != null) {
+        totalChars -= old.size;
+      }
+      totalChars += entry.size;
+      Iterator<Entry> iter = entries.values().iterator();
+      while (
+          (entries.size() > maxEntries || totalChars > maxChars)
+              && iter.hasNext()
+      ) {
+        Entry eldest = iter.next();
+        iter.remove();
+        totalChars -= eldest.size;
+      }
+    }
+  }
+
+  /**
+   * Removes all cached items.
+   */
+  void clear() {
+    synchronized (entries) {
+      entries.clear();
+      totalChars = 0;
+    }
+  }
+
+  /**
+   * The number of items served from the cache.
+   */
+  long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * The number of items not in the cache or outdated.
+   */
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * The number of items currently cached.
+   */
+  int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * The total characters of all items currently cached.
+   */
+  long getTotalChars() {
+    synchronized (entries) {
+      return totalChars;
+    }
+  }
+}
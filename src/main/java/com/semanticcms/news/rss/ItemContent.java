@@ -0,0 +1,74 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+/**
+ * What each item of a feed contains, per book "itemContent" settings.
+ *
+ * @author  AO Industries, Inc.
+ */
+enum ItemContent {
+
+  /**
+   * Only the news description, built from the news captured at
+   * {@link com.semanticcms.core.servlet.CaptureLevel#META} level without recapturing any news pages.
+   */
+  DESCRIPTION("description"),
+
+  /**
+   * The news description and its entire body, which requires recapturing each news page at
+   * {@link com.semanticcms.core.servlet.CaptureLevel#BODY} level.
+   */
+  BODY("body"),
+
+  /**
+   * The news description and the beginning of its body, limited by book "truncateLength" settings.
+   */
+  TRUNCATED("truncated");
+
+  /**
+   * Gets the item content by its book parameter value.
+   *
+   * @return  the item content or {@code null} when no match
+   */
+  static ItemContent forParam(String param) {
+    for (ItemContent itemContent : values()) {
+      if (itemContent.param.equals(param)) {
+        return itemContent;
+      }
+    }
+    return null;
+  }
+
+  private final String param;
+
+  private ItemContent(String param) {
+    this.param = param;
+  }
+
+  @Override
+  public String toString() {
+    return param;
+  }
+}
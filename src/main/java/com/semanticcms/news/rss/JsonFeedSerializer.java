@@ -0,0 +1,222 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes the <a href="https://www.jsonfeed.org/version/1.1/">JSON Feed 1.1</a> format.
+ *
+ * <p>RFC 5005 archive pages are linked with <code>next_url</code>, which JSON Feed uses for older items.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class JsonFeedSerializer {
+
+  /** Make no instances. */
+  private JsonFeedSerializer() {
+    throw new AssertionError();
+  }
+
+  private static final String VERSION = "https://jsonfeed.org/version/1.1";
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * Writes a JSON string, including the surrounding quotes.
+   */
+  private static void writeString(CharSequence value, PrintWriter out) {
+    out.print('"');
+    for (int i = 0, len = value.length(); i < len; i++) {
+      char ch = value.charAt(i);
+      switch (ch) {
+        case '"':
+          out.print("\\\"");
+          break;
+        case '\\':
+          out.print("\\\\");
+          break;
+        case '\n':
+          out.print("\\n");
+          break;
+        case '\r':
+          out.print("\\r");
+          break;
+        case '\t':
+          out.print("\\t");
+          break;
+        default:
+          // Line and paragraph separators are escaped for JavaScript
+          if (ch < ' ' || ch == '\u2028' || ch == '\u2029') {
+            out.print("\\u");
+            out.print(HEX[(ch >>> 12) & 0xf]);
+            out.print(HEX[(ch >>> 8) & 0xf]);
+            out.print(HEX[(ch >>> 4) & 0xf]);
+            out.print(HEX[ch & 0xf]);
+          } else {
+            out.print(ch);
+          }
+      }
+    }
+    out.print('"');
+  }
+
+  /**
+   * Writes an optional member, after the members that are always present.
+   */
+  private static void writeMember(String indent, String name, String value, PrintWriter out) {
+    if (value != null) {
+      out.print(",\n");
+      out.print(indent);
+      out.print('"');
+      out.print(name);
+      out.print("\": ");
+      writeString(value, out);
+    }
+  }
+
+  /**
+   * Decodes HTML content that is already encoded as XML text, which only uses the predefined entities and
+   * character references.  Any other reference, including an invalid character reference, is kept as-is.
+   */
+  static String decodeXml(String xml) {
+    int amp = xml.indexOf('&');
+    if (amp == -1) {
+      return xml;
+    }
+    StringBuilder decoded = new StringBuilder(xml.length());
+    int pos = 0;
+    while (amp != -1) {
+      decoded.append(xml, pos, amp);
+      int semicolon = xml.indexOf(';', amp);
+      if (semicolon == -1) {
+        break;
+      }
+      String entity = xml.substring(amp + 1, semicolon);
+      switch (entity) {
+        case "lt":
+          decoded.append('<');
+          break;
+        case "gt":
+          decoded.append('>');
+          break;
+        case "amp":
+          decoded.append('&');
+          break;
+        case "quot":
+          decoded.append('"');
+          break;
+        case "apos":
+          decoded.append('\'');
+          break;
+        default:
+          int codePoint;
+          try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+              codePoint = Integer.parseInt(entity.substring(2), 16);
+            } else if (entity.startsWith("#")) {
+              codePoint = Integer.parseInt(entity.substring(1));
+            } else {
+              codePoint = -1;
+            }
+          } catch (NumberFormatException e) {
+            codePoint = -1;
+          }
+          if (Character.isValidCodePoint(codePoint)) {
+            decoded.appendCodePoint(codePoint);
+          } else {
+            // Not produced by the encoder, kept as-is
+            decoded.append(xml, amp, semicolon + 1);
+          }
+      }
+      pos = semicolon + 1;
+      amp = xml.indexOf('&', pos);
+    }
+    decoded.append(xml, pos, xml.length());
+    return decoded.toString();
+  }
+
+  static void write(FeedChannel channel, PrintWriter out) throws IOException {
+    out.print("{\n"
+        + "  \"version\": ");
+    writeString(VERSION, out);
+    out.print(",\n"
+        + "  \"title\": ");
+    writeString(channel.getTitle(), out);
+    writeMember("  ", "home_page_url", channel.getLink(), out);
+    writeMember("  ", "feed_url", channel.getFeedUrl(), out);
+    // WebSub, only the current feed changes
+    String hub = channel.getHub();
+    if (hub != null) {
+      out.print(",\n"
+          + "  \"hubs\": [\n"
+          + "    {\n"
+          + "      \"type\": \"WebSub\",\n"
+          + "      \"url\": ");
+      writeString(hub, out);
+      out.print("\n"
+          + "    }\n"
+          + "  ]");
+    }
+    writeMember("  ", "description", channel.getDescription(), out);
+    writeMember("  ", "next_url", channel.getPrevArchiveUrl(), out);
+    FeedChannel.Image image = channel.getImage();
+    if (image != null) {
+      writeMember("  ", "icon", image.getUrl(), out);
+    }
+    out.print(",\n"
+        + "  \"items\": [");
+    boolean first = true;
+    for (FeedChannel.Entry entry : channel.getEntries()) {
+      FeedItem item = entry.getItem();
+      out.print(first ? "\n" : ",\n");
+      first = false;
+      out.print("    {\n"
+          + "      \"id\": ");
+      writeString(item.getGuid(), out);
+      out.print(",\n"
+          + "      \"url\": ");
+      writeString(item.getLink(), out);
+      out.print(",\n"
+          + "      \"title\": ");
+      writeString(item.getTitle(), out);
+      writeMember("      ", "summary", item.getDescription(), out);
+      String contentHtml = item.getContentHtml();
+      if (contentHtml != null) {
+        writeMember("      ", "content_html", contentHtml, out);
+      } else {
+        // Either content_html or content_text is required
+        writeMember("      ", "content_text", "", out);
+      }
+      out.print(",\n"
+          + "      \"date_published\": \"");
+      FeedWriter.writeIsoDate(item.getPubDate(), out);
+      out.print("\"\n"
+          + "    }");
+    }
+    out.print(first ? "]\n" : "\n  ]\n");
+    out.print("}\n");
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * A snapshot of the statistics of one timed operation.
+ * Percentiles are estimated from power-of-two histogram buckets and are reported as the upper bound of their bucket.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class LatencyStats {
+
+  private final long count;
+  private final double meanMillis;
+  private final double maxMillis;
+  private final double p50Millis;
+  private final double p95Millis;
+  private final double p99Millis;
+
+  /**
+   * Creates a new snapshot.
+   */
+  @ConstructorParameters({"count", "meanMillis", "maxMillis", "p50Millis", "p95Millis", "p99Millis"})
+  public LatencyStats(long count, double meanMillis, double maxMillis, double p50Millis, double p95Millis, double p99Millis) {
+    this.count = count;
+    this.meanMillis = meanMillis;
+    this.maxMillis = maxMillis;
+    this.p50Millis = p50Millis;
+    this.p95Millis = p95Millis;
+    this.p99Millis = p99Millis;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + count
+        + ", mean=" + meanMillis
+        + " ms, max=" + maxMillis
+        + " ms, p50=" + p50Millis
+        + " ms, p95=" + p95Millis
+        + " ms, p99=" + p99Millis + " ms";
+  }
+
+  /**
+   * The number of times the operation was timed.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * The mean time in milliseconds.
+   */
+  public double getMeanMillis() {
+    return meanMillis;
+  }
+
+  /**
+   * The maximum time in milliseconds.
+   */
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  /**
+   * The estimated median time in milliseconds.
+   */
+  public double getP50Millis() {
+    return p50Millis;
+  }
+
+  /**
+   * The estimated 95th percentile time in milliseconds.
+   */
+  public double getP95Millis() {
+    return p95Millis;
+  }
+
+  /**
+   * The estimated 99th percentile time in milliseconds.
+   */
+  public double getP99Millis() {
+    return p99Millis;
+  }
+}
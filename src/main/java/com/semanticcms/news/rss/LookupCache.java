@@ -0,0 +1,192 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.rss;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded in-memory cache of the recent lookups of each feed: its page, news, and entity tag.
+ *
+ * <p>Concurrent pollers of the same feed share a single lookup, including its capture of the page, its walk of the
+ * {@link NewsIndex}, and the digest of its {@link FeedETag}, instead of only sharing the final render.  Each lookup
+ * is also reused for a short time after it completes, so an edit may take that long to be seen.  Failed lookups are
+ * not kept.</p>
+ *
+ * @param  <V>  the type of the result of each lookup
+ *
+ * @author  AO Industries, Inc.
+ */
+final class LookupCache<V> {
+
+  /**
+   * The default maximum number of lookups to cache.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  /**
+   * The default seconds a lookup is reused.
+   */
+  static final int DEFAULT_TTL = 1;
+
+  /**
+   * The feed of a lookup.
+   */
+  static final class Key {
+
+    private final String basePath;
+    private final FeedFormat format;
+    private final String view;
+    private final String archive;
+    private final String urlBase;
+
+    /**
+     * @param  basePath  the servlet path of the feed without its extension
+     * @param  archive   the cursor of the archive page or {@code null} for the current feed
+     */
+    Key(String basePath, FeedFormat format, String view, String archive, String urlBase) {
+      this.basePath = basePath;
+      this.format = format;
+      this.view = view;
+      this.archive = archive;
+      this.urlBase = urlBase;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          basePath.equals(other.basePath)
+              && format == other.format
+              && view.equals(other.view)
+              && Objects.equals(archive, other.archive)
+              && urlBase.equals(other.urlBase);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = basePath.hashCode();
+      hash = hash * 31 + format.hashCode();
+      hash = hash * 31 + view.hashCode();
+      hash = hash * 31 + Objects.hashCode(archive);
+      hash = hash * 31 + urlBase.hashCode();
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return urlBase + basePath + format.getExtension() + "?view=" + view
+          + (archive == null ? "" : ("&archive=" + archive));
+    }
+  }
+
+  private static final class Lookup<V> {
+
+    private final V value;
+    private final long expiresNanos;
+
+    private Lookup(V value, long expiresNanos) {
+      this.value = value;
+      this.expiresNanos = expiresNanos;
+    }
+  }
+
+  private final int maxEntries;
+  private final long ttlNanos;
+
+  private final SingleFlight<Key, V> inProgress = new SingleFlight<>();
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<Key, Lookup<V>> lookups = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Lookup<V>> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  /**
+   * @param  ttl  the seconds a lookup is reused, or {@code 0} to only share concurrent lookups
+   */
+  LookupCache(int maxEntries, int ttl) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries < 0: " + maxEntries);
+    }
+    if (ttl < 0) {
+      throw new IllegalArgumentException("ttl < 0: " + ttl);
+    }
+    this.maxEntries = maxEntries;
+    this.ttlNanos = ttl * 1000000000L;
+  }
+
+  /**
+   * Gets the recent lookup of a feed, or performs it, sharing any lookup of the same feed already in progress.
+   *
+   * @param  onShared  run when sharing the lookup of another request, may be {@code null}
+   */
+  V get(Key key, SingleFlight.Call<? extends V> lookup, Runnable onShared) throws ServletException, IOException {
+    if (maxEntries == 0 || ttlNanos == 0) {
+      return inProgress.execute(key, lookup, onShared);
+    }
+    Lookup<V> recent;
+    synchronized (lookups) {
+      recent = lookups.get(key);
+    }
+    if (recent != null && System.nanoTime() - recent.expiresNanos < 0) {
+      if (onShared != null) {
+        onShared.run();
+      }
+      return recent.value;
+    }
+    return inProgress.execute(
+        key,
+        () -> {
+          V value = lookup.call();
+          Lookup<V> done = new Lookup<>(value, System.nanoTime() + ttlNanos);
+          synchronized (lookups) {
+            lookups.put(key, done);
+          }
+          return value;
+        },
+        onShared
+    );
+  }
+
+  /**
+   * Removes all cached lookups.
+   */
+  void clear() {
+    synchronized (lookups) {
+      lookups.clear();
+    }
+  }
+}
@@ -0,0 +1,368 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.aoapps.servlet.ServletContextCache;
+import com.semanticcms.core.model.ChildRef;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.core.servlet.CapturePage;
+import com.semanticcms.news.model.News;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An incrementally maintained index of the news on each page, replacing a full
+ * {@link com.semanticcms.news.servlet.NewsUtils#findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}
+ * walk on every request.
+ *
+ * <p>For each page, the index keeps its own news and its child pages, valid while the modification time of its
+ * page resource is unchanged.  Adding or removing a child page modifies the parent, so the tree of pages is also
+ * kept current.  When pages change, only the changed pages are recaptured.</p>
+ *
+ * <p>For each feed, the index also keeps the merged news of the entire tree, sorted by <code>pubDate</code>.
+ * While every page in the tree is unmodified, a feed request only checks the modification times of the
+ * resources, which are cached by {@link ServletContextCache}, and reads the top entries.</p>
+ *
+ * <p>Pages with an unknown modification time are always recaptured.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class NewsIndex {
+
+  /**
+   * The default maximum number of pages and feeds to index.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 100000;
+
+  /**
+   * The news and child pages of one page.
+   */
+  private static final class PageNews {
+
+    private final long lastModified;
+    private final List<News> news;
+    private final List<PageRef> childRefs;
+
+    private PageNews(long lastModified, List<News> news, List<PageRef> childRefs) {
+      this.lastModified = lastModified;
+      this.news = news;
+      this.childRefs = childRefs;
+    }
+  }
+
+  /**
+   * The merged news of a page and all its child pages.
+   */
+  private static final class TreeNews {
+
+    private final PageRef[] pageRefs;
+    private final long[] lastModifieds;
+    private final List<News> news;
+
+    private TreeNews(PageRef[] pageRefs, long[] lastModifieds, List<News> news) {
+      this.pageRefs = pageRefs;
+      this.lastModifieds = lastModifieds;
+      this.news = news;
+    }
+  }
+
+  private final int maxEntries;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<PageRef, PageNews> pages = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<PageRef, PageNews> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<PageRef, TreeNews> trees = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<PageRef, TreeNews> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  private final SingleFlight<PageRef, List<News>> walks = new SingleFlight<>();
+
+  NewsIndex(int maxEntries) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries < 0: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  private static long getLastModified(ServletContext servletContext, PageRef pageRef) {
+    return ServletContextCache.getLastModified(servletContext, pageRef.getServletPath());
+  }
+
+  /**
+   * Gets the news declared directly on a page and its child pages.
+   */
+  private static PageNews index(long lastModified, Page page) {
+    List<News> news = new ArrayList<>();
+    for (Element element : page.getElements()) {
+      if (element instanceof News) {
+        news.add((News) element);
+      }
+    }
+    Set<ChildRef> childRefs = page.getChildRefs();
+    List<PageRef> childPageRefs = new ArrayList<>(childRefs.size());
+    for (ChildRef childRef : childRefs) {
+      childPageRefs.add(childRef.getPageRef());
+    }
+    return new PageNews(
+        lastModified,
+        news.isEmpty() ? Collections.emptyList() : news,
+        childPageRefs.isEmpty() ? Collections.emptyList() : childPageRefs
+    );
+  }
+
+  /**
+   * Gets the indexed news of a page when unmodified.
+   *
+   * @return  the news or {@code null} when not indexed or outdated
+   */
+  private PageNews getPage(PageRef pageRef, long lastModified) {
+    if (lastModified == 0) {
+      return null;
+    }
+    synchronized (pages) {
+      PageNews pageNews = pages.get(pageRef);
+      return (pageNews != null && pageNews.lastModified == lastModified) ? pageNews : null;
+    }
+  }
+
+  private void putPage(PageRef pageRef, PageNews pageNews) {
+    if (pageNews.lastModified != 0 && maxEntries != 0) {
+      synchronized (pages) {
+        pages.put(pageRef, pageNews);
+      }
+    }
+  }
+
+  /**
+   * Finds all the news of the given page and its child pages, sorted with the newest first.
+   *
+   * @param  page  the page, already captured at least at {@link CaptureLevel#META} level
+   *
+   * @return  the unmodifiable list of news
+   */
+  List<News> findAllNews(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      Page page
+  ) throws ServletException, IOException {
+    PageRef rootRef = page.getPageRef();
+    List<News> news = getUnmodified(servletContext, rootRef);
+    if (news != null) {
+      return news;
+    }
+    // Concurrent requests for the same feed share one walk
+    return walks.execute(rootRef, () -> walk(servletContext, req, resp, page), null);
+  }
+
+  /**
+   * Gets the indexed news of a page and its child pages when nothing in the tree has changed.
+   *
+   * @return  the unmodifiable list of news or {@code null} when not indexed or outdated
+   */
+  private List<News> getUnmodified(ServletContext servletContext, PageRef rootRef) {
+    TreeNews tree;
+    synchronized (trees) {
+      tree = trees.get(rootRef);
+    }
+    if (tree == null) {
+      return null;
+    }
+    for (int i = 0; i < tree.pageRefs.length; i++) {
+      long lastModified = tree.lastModifieds[i];
+      if (lastModified == 0 || lastModified != getLastModified(servletContext, tree.pageRefs[i])) {
+        return null;
+      }
+    }
+    return tree.news;
+  }
+
+  /**
+   * Checks if any page in the indexed tree of a page has been modified since indexed, without capturing any page,
+   * which is when the news of its feed may have changed.  Pages with an unknown modification time are ignored, since
+   * their changes cannot be noticed.
+   *
+   * @return  {@code true} when modified or {@code false} when unmodified or the tree is not indexed
+   */
+  boolean isModified(ServletContext servletContext, PageRef rootRef) {
+    TreeNews tree;
+    synchronized (trees) {
+      tree = trees.get(rootRef);
+    }
+    if (tree != null) {
+      for (int i = 0; i < tree.pageRefs.length; i++) {
+        long lastModified = tree.lastModifieds[i];
+        if (lastModified != 0 && lastModified != getLastModified(servletContext, tree.pageRefs[i])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if a page and all its child pages are known to have no news, without capturing any page.
+   * This remains known until any page in the tree is modified.
+   */
+  boolean isWithoutNews(ServletContext servletContext, PageRef rootRef) {
+    List<News> news = getUnmodified(servletContext, rootRef);
+    return news != null && news.isEmpty();
+  }
+
+  /**
+   * Finds the pages in the tree of a page that have feeds, which are those with news on themselves or on any child
+   * page, from the index only, without any capture.  The tree should already be indexed by
+   * {@link #findAllNews(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, jakarta.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page)}.
+   * Pages no longer in the index are included, since whether they have news is unknown.
+   *
+   * @return  the pages, including the given page when it has news, with child pages before their parents
+   */
+  List<PageRef> findPagesWithNews(PageRef rootRef) {
+    Map<PageRef, Boolean> hasNews = new HashMap<>();
+    List<PageRef> withNews = new ArrayList<>();
+    synchronized (pages) {
+      hasNews(rootRef, hasNews, withNews);
+    }
+    return withNews;
+  }
+
+  private boolean hasNews(PageRef pageRef, Map<PageRef, Boolean> hasNews, List<PageRef> withNews) {
+    assert Thread.holdsLock(pages);
+    Boolean known = hasNews.get(pageRef);
+    if (known != null) {
+      return known;
+    }
+    // Pages in a cycle do not have news through themselves
+    hasNews.put(pageRef, Boolean.FALSE);
+    PageNews pageNews = pages.get(pageRef);
+    boolean result;
+    if (pageNews == null) {
+      result = true;
+    } else {
+      result = !pageNews.news.isEmpty();
+      for (PageRef childRef : pageNews.childRefs) {
+        if (hasNews(childRef, hasNews, withNews)) {
+          result = true;
+        }
+      }
+    }
+    hasNews.put(pageRef, result);
+    if (result) {
+      withNews.add(pageRef);
+    }
+    return result;
+  }
+
+  /**
+   * Walks the tree, recapturing only the pages that changed, and indexes the merged news.
+   */
+  private List<News> walk(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      Page page
+  ) throws ServletException, IOException {
+    PageRef rootRef = page.getPageRef();
+    List<PageRef> treeRefs = new ArrayList<>();
+    List<Long> treeLastModifieds = new ArrayList<>();
+    List<News> allNews = new ArrayList<>();
+    Set<PageRef> visited = new HashSet<>();
+    List<PageRef> toVisit = new ArrayList<>();
+    toVisit.add(rootRef);
+    while (!toVisit.isEmpty()) {
+      PageRef pageRef = toVisit.remove(toVisit.size() - 1);
+      if (visited.add(pageRef)) {
+        long lastModified = getLastModified(servletContext, pageRef);
+        PageNews pageNews = getPage(pageRef, lastModified);
+        if (pageNews == null) {
+          Page captured = pageRef.equals(rootRef)
+              ? page
+              : CapturePage.capturePage(servletContext, req, resp, pageRef, CaptureLevel.META);
+          pageNews = index(lastModified, captured);
+          putPage(pageRef, pageNews);
+        }
+        treeRefs.add(pageRef);
+        treeLastModifieds.add(lastModified);
+        allNews.addAll(pageNews.news);
+        toVisit.addAll(pageNews.childRefs);
+      }
+    }
+    Collections.sort(allNews);
+    List<News> sorted = Collections.unmodifiableList(allNews);
+    int size = treeRefs.size();
+    long[] lastModifieds = new long[size];
+    for (int i = 0; i < size; i++) {
+      lastModifieds[i] = treeLastModifieds.get(i);
+    }
+    if (maxEntries != 0) {
+      synchronized (trees) {
+        trees.put(rootRef, new TreeNews(treeRefs.toArray(new PageRef[size]), lastModifieds, sorted));
+      }
+    }
+    return sorted;
+  }
+
+  /**
+   * Removes everything from the index.
+   */
+  void clear() {
+    synchronized (pages) {
+      pages.clear();
+    }
+    synchronized (trees) {
+      trees.clear();
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the content of a feed with non-blocking I/O, then completes the asynchronous request.
+ * No thread is held while waiting on a slow client.
+ *
+ * <p>The request is only completed once both the content is written and processing is {@linkplain #finish() finished},
+ * so processing may continue after the content is {@linkplain #start() started}, such as to re-render a feed
+ * after serving it stale.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class NonBlockingWrite implements WriteListener {
+
+  /**
+   * The number of bytes written at a time when the content has no accessible array.
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  private final ServletContext servletContext;
+  private final AsyncContext asyncContext;
+  private ServletOutputStream out;
+  private ByteBuffer content;
+  private byte[] chunk;
+  private boolean started;
+  private boolean closing;
+  private boolean written;
+  private boolean finished;
+  private boolean completed;
+
+  NonBlockingWrite(ServletContext servletContext, AsyncContext asyncContext) {
+    this.servletContext = servletContext;
+    this.asyncContext = asyncContext;
+  }
+
+  /**
+   * Sets the content to write, replacing any content set before.
+   *
+   * @param  content  the content or {@code null} for none, such as after an error was sent
+   *
+   * @throws  IllegalStateException  when already started
+   */
+  void setContent(ByteBuffer content) throws IllegalStateException {
+    if (started) {
+      throw new IllegalStateException("Already started");
+    }
+    this.content = content;
+  }
+
+  boolean isStarted() {
+    return started;
+  }
+
+  /**
+   * Starts writing any content set.  Does nothing when already started.
+   */
+  void start() throws IOException {
+    if (!started) {
+      started = true;
+      if (content == null) {
+        written();
+      } else {
+        out = asyncContext.getResponse().getOutputStream();
+        // Calls onWritePossible once the output is ready
+        out.setWriteListener(this);
+      }
+    }
+  }
+
+  /**
+   * Starts writing any content set, then closes the response once written, so the client has the entire
+   * response while processing continues.  The request is still only completed once processing is
+   * {@linkplain #finish() finished}.
+   *
+   * @throws  IllegalStateException  when already started
+   */
+  void startAndClose() throws IllegalStateException, IOException {
+    if (started) {
+      throw new IllegalStateException("Already started");
+    }
+    closing = true;
+    if (content == null) {
+      asyncContext.getResponse().getOutputStream().close();
+    }
+    start();
+  }
+
+  /**
+   * Indicates processing is finished, starting any content not yet started.
+   * The request is completed once the content is written.
+   */
+  void finish() throws IOException {
+    try {
+      start();
+    } finally {
+      synchronized (this) {
+        finished = true;
+        completeIfDone();
+      }
+    }
+  }
+
+  private synchronized void written() {
+    written = true;
+    completeIfDone();
+  }
+
+  private void completeIfDone() {
+    assert Thread.holdsLock(this);
+    if (written && finished && !completed) {
+      completed = true;
+      asyncContext.complete();
+    }
+  }
+
+  @Override
+  public void onWritePossible() throws IOException {
+    ByteBuffer buffer = content;
+    while (out.isReady()) {
+      if (!buffer.hasRemaining()) {
+        if (closing) {
+          out.close();
+        }
+        written();
+        return;
+      }
+      int len = buffer.remaining();
+      if (buffer.hasArray()) {
+        out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+        buffer.position(buffer.position() + len);
+      } else {
+        if (chunk == null) {
+          chunk = new byte[CHUNK_SIZE];
+        }
+        len = Math.min(len, CHUNK_SIZE);
+        buffer.get(chunk, 0, len);
+        out.write(chunk, 0, len);
+      }
+    }
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    servletContext.log("Unable to write feed", t);
+    written();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.PageRefResolver;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of the pages news link to, shared by all requests.
+ *
+ * <p>Only targets with both a book and an absolute path are cached, since their resolution does not depend on
+ * the current page of the request.  All other targets are resolved on every call.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class PageRefCache {
+
+  /**
+   * The default maximum number of targets to cache.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private final int maxEntries;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<Map.Entry<String, String>, PageRef> pageRefs = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Map.Entry<String, String>, PageRef> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  PageRefCache(int maxEntries) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries < 0: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Resolves a target page, reusing any earlier resolution of the same book and absolute path.
+   *
+   * @see  PageRefResolver#getPageRef(jakarta.servlet.ServletContext, jakarta.servlet.http.HttpServletRequest, java.lang.String, java.lang.String)
+   */
+  PageRef getPageRef(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      String book,
+      String path
+  ) throws ServletException, IOException {
+    if (book == null || path == null || !path.startsWith("/") || maxEntries == 0) {
+      return PageRefResolver.getPageRef(servletContext, req, book, path);
+    }
+    Map.Entry<String, String> key = Map.entry(book, path);
+    PageRef pageRef;
+    synchronized (pageRefs) {
+      pageRef = pageRefs.get(key);
+    }
+    if (pageRef == null) {
+      // Failures are not cached
+      pageRef = PageRefResolver.getPageRef(servletContext, req, book, path);
+      synchronized (pageRefs) {
+        pageRefs.put(key, pageRef);
+      }
+    }
+    return pageRef;
+  }
+
+  /**
+   * Removes all cached targets.
+   */
+  void clear() {
+    synchronized (pageRefs) {
+      pageRefs.clear();
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operational metrics of {@link RssServlet}, kept entirely in memory.
+ *
+ * @author  AO Industries, Inc.
+ */
+public final class RssMetrics implements RssMetricsMXBean {
+
+  /**
+   * The servlet context attribute holding the metrics of the RSS servlet.
+   */
+  public static final ScopeEE.Application.Attribute<RssMetrics> APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(RssMetrics.class.getName());
+
+  /**
+   * Times one operation into a histogram of power-of-two nanosecond buckets.
+   */
+  static final class Timer {
+
+    /**
+     * The first bucket is everything up to 2<sup>10</sup> nanoseconds, about one microsecond.
+     */
+    private static final int MIN_SHIFT = 10;
+
+    /**
+     * The last bucket is everything over 2<sup>36</sup> nanoseconds, about 69 seconds.
+     */
+    private static final int MAX_SHIFT = 36;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(MAX_SHIFT - MIN_SHIFT + 2);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private Timer() {
+      // Only created by RssMetrics
+    }
+
+    void record(long nanos) {
+      if (nanos < 0) {
+        nanos = 0;
+      }
+      int bucket = Math.min(
+          Math.max(Long.SIZE - Long.numberOfLeadingZeros(nanos) - MIN_SHIFT, 0),
+          MAX_SHIFT - MIN_SHIFT + 1
+      );
+      buckets.incrementAndGet(bucket);
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    private static double toMillis(long nanos) {
+      return nanos / 1_000_000d;
+    }
+
+    /**
+     * Gets the upper bound of the bucket containing the given fraction of all timings.
+     */
+    private double percentileMillis(long[] counts, long total, double fraction) {
+      long rank = (long) Math.ceil(total * fraction);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return i == counts.length - 1 ? toMillis(maxNanos.get()) : toMillis(1L << (i + MIN_SHIFT));
+        }
+      }
+      return toMillis(maxNanos.get());
+    }
+
+    LatencyStats getStats() {
+      long[] counts = new long[buckets.length()];
+      long total = 0;
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buckets.get(i);
+        total += counts[i];
+      }
+      if (total == 0) {
+        return new LatencyStats(0, 0, 0, 0, 0, 0);
+      }
+      return new LatencyStats(
+          total,
+          toMillis(totalNanos.sum()) / total,
+          toMillis(maxNanos.get()),
+          percentileMillis(counts, total, 0.50),
+          percentileMillis(counts, total, 0.95),
+          percentileMillis(counts, total, 0.99)
+      );
+    }
+  }
+
+  private final FeedCache feedCache;
+  private final ItemCache itemCache;
+
+  final LongAdder requests = new LongAdder();
+  final LongAdder notModified = new LongAdder();
+  final LongAdder notFound = new LongAdder();
+  final LongAdder errors = new LongAdder();
+  final Timer requestTime = new Timer();
+  final Timer metaCaptureTime = new Timer();
+  final Timer findNewsTime = new Timer();
+  final Timer bodyCaptureTime = new Timer();
+  final Timer serializationTime = new Timer();
+  final LongAdder feedsRendered = new LongAdder();
+  final LongAdder itemsRendered = new LongAdder();
+  final LongAccumulator maxItemsPerFeed = new LongAccumulator(Math::max, 0);
+  final LongAdder bytesWritten = new LongAdder();
+  final LongAdder feedStoreHits = new LongAdder();
+  final LongAdder coalesced = new LongAdder();
+  final LongAdder lookupsShared = new LongAdder();
+  final LongAdder staleServed = new LongAdder();
+  final LongAdder deltas = new LongAdder();
+  final LongAdder asyncRejected = new LongAdder();
+  final LongAdder throttled = new LongAdder();
+  final LongAdder webSubPublished = new LongAdder();
+  final LongAdder webSubFailed = new LongAdder();
+
+  RssMetrics(FeedCache feedCache, ItemCache itemCache) {
+    this.feedCache = feedCache;
+    this.itemCache = itemCache;
+  }
+
+  /**
+   * Records a feed rendered with the given number of items.
+   */
+  void feedRendered(int items) {
+    feedsRendered.increment();
+    itemsRendered.add(items);
+    maxItemsPerFeed.accumulate(items);
+  }
+
+  @Override
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  @Override
+  public long getNotModified() {
+    return notModified.sum();
+  }
+
+  @Override
+  public long getNotFound() {
+    return notFound.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public LatencyStats getRequestTime() {
+    return requestTime.getStats();
+  }
+
+  @Override
+  public LatencyStats getMetaCaptureTime() {
+    return metaCaptureTime.getStats();
+  }
+
+  @Override
+  public LatencyStats getFindNewsTime() {
+    return findNewsTime.getStats();
+  }
+
+  @Override
+  public LatencyStats getBodyCaptureTime() {
+    return bodyCaptureTime.getStats();
+  }
+
+  @Override
+  public LatencyStats getSerializationTime() {
+    return serializationTime.getStats();
+  }
+
+  @Override
+  public long getFeedsRendered() {
+    return feedsRendered.sum();
+  }
+
+  @Override
+  public long getItemsRendered() {
+    return itemsRendered.sum();
+  }
+
+  @Override
+  public long getMaxItemsPerFeed() {
+    return maxItemsPerFeed.get();
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  @Override
+  public long getFeedCacheHits() {
+    return feedCache.getHits();
+  }
+
+  @Override
+  public long getFeedCacheMisses() {
+    return feedCache.getMisses();
+  }
+
+  @Override
+  public int getFeedCacheSize() {
+    return feedCache.getSize();
+  }
+
+  @Override
+  public long getFeedCacheBytes() {
+    return feedCache.getTotalBytes();
+  }
+
+  @Override
+  public long getFeedStoreHits() {
+    return feedStoreHits.sum();
+  }
+
+  @Override
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+
+  @Override
+  public long getLookupsShared() {
+    return lookupsShared.sum();
+  }
+
+  @Override
+  public long getStaleServed() {
+    return staleServed.sum();
+  }
+
+  @Override
+  public long getDeltas() {
+    return deltas.sum();
+  }
+
+  @Override
+  public long getAsyncRejected() {
+    return asyncRejected.sum();
+  }
+
+  @Override
+  public long getThrottled() {
+    return throttled.sum();
+  }
+
+  @Override
+  public long getWebSubPublished() {
+    return webSubPublished.sum();
+  }
+
+  @Override
+  public long getWebSubFailed() {
+    return webSubFailed.sum();
+  }
+
+  @Override
+  public long getItemCacheHits() {
+    return itemCache.getHits();
+  }
+
+  @Override
+  public long getItemCacheMisses() {
+    return itemCache.getMisses();
+  }
+
+  @Override
+  public int getItemCacheSize() {
+    return itemCache.getSize();
+  }
+}
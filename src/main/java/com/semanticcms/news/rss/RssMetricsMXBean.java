@@ -0,0 +1,180 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+/**
+ * Operational metrics of {@link RssServlet}, registered in the platform MBean server and available as the
+ * servlet context attribute {@link RssMetrics#APPLICATION_ATTRIBUTE}.
+ *
+ * @author  AO Industries, Inc.
+ */
+public interface RssMetricsMXBean {
+
+  /**
+   * The total number of requests.
+   */
+  long getRequests();
+
+  /**
+   * The number of requests answered with <code>304 Not Modified</code>.
+   */
+  long getNotModified();
+
+  /**
+   * The number of requests answered with <code>404 Not Found</code>.
+   */
+  long getNotFound();
+
+  /**
+   * The number of requests that failed with an exception or a server error status.
+   */
+  long getErrors();
+
+  /**
+   * The total time of each request.
+   */
+  LatencyStats getRequestTime();
+
+  /**
+   * The time to capture the page at META level, only recorded when a capture is done.
+   */
+  LatencyStats getMetaCaptureTime();
+
+  /**
+   * The time to find all news of the page and its children.
+   */
+  LatencyStats getFindNewsTime();
+
+  /**
+   * The time per feed recapturing news pages at BODY level.
+   */
+  LatencyStats getBodyCaptureTime();
+
+  /**
+   * The time per feed serializing, not including BODY recapture.
+   */
+  LatencyStats getSerializationTime();
+
+  /**
+   * The number of feeds rendered, not counting those served from the cache.
+   */
+  long getFeedsRendered();
+
+  /**
+   * The total number of items in all feeds rendered.
+   */
+  long getItemsRendered();
+
+  /**
+   * The largest number of items in any feed rendered.
+   */
+  long getMaxItemsPerFeed();
+
+  /**
+   * The total bytes of feed content written, after any compression.
+   */
+  long getBytesWritten();
+
+  /**
+   * The number of feeds served from the feed cache.
+   */
+  long getFeedCacheHits();
+
+  /**
+   * The number of feeds not in the feed cache or outdated.
+   */
+  long getFeedCacheMisses();
+
+  /**
+   * The number of feeds currently cached.
+   */
+  int getFeedCacheSize();
+
+  /**
+   * The total bytes of all feeds currently cached.
+   */
+  long getFeedCacheBytes();
+
+  /**
+   * The number of feeds sent from files stored on disk.
+   */
+  long getFeedStoreHits();
+
+  /**
+   * The number of requests that shared a feed rendered concurrently for another request.
+   */
+  long getCoalesced();
+
+  /**
+   * The number of requests that shared the lookup of the page, news, and entity tag of a feed done recently or
+   * concurrently for another request.
+   */
+  long getLookupsShared();
+
+  /**
+   * The number of requests served a stale feed, while re-rendering or after a failure.
+   */
+  long getStaleServed();
+
+  /**
+   * The number of requests answered with <code>226 IM Used</code> and only the newer news.
+   */
+  long getDeltas();
+
+  /**
+   * The number of requests turned away with <code>503 Service Unavailable</code> while the asynchronous queue was full.
+   */
+  long getAsyncRejected();
+
+  /**
+   * The number of polls turned away by admission control, with <code>429 Too Many Requests</code> or
+   * <code>304 Not Modified</code>.
+   */
+  long getThrottled();
+
+  /**
+   * The number of topics accepted by a WebSub hub in publish pings.
+   */
+  long getWebSubPublished();
+
+  /**
+   * The number of topics abandoned after every attempt to ping their WebSub hub failed.
+   */
+  long getWebSubFailed();
+
+  /**
+   * The number of items served from the item cache.
+   */
+  long getItemCacheHits();
+
+  /**
+   * The number of items not in the item cache or outdated.
+   */
+  long getItemCacheMisses();
+
+  /**
+   * The number of items currently cached.
+   */
+  int getItemCacheSize();
+}
@@ -0,0 +1,210 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import static com.aoapps.encoding.TextInXhtmlAttributeEncoder.textInXhtmlAttributeEncoder;
+import static com.aoapps.encoding.TextInXhtmlEncoder.encodeTextInXhtml;
+
+import com.semanticcms.news.servlet.RssUtils;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * Writes the <a href="https://cyber.harvard.edu/rss/rss.html">RSS 2.0</a> format.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class RssSerializer {
+
+  /** Make no instances. */
+  private RssSerializer() {
+    throw new AssertionError();
+  }
+
+  private static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+
+  private static void writeElement(String elementName, String value, Appendable out) throws IOException {
+    if (value != null) {
+      out.append("        <").append(elementName).append('>');
+      encodeTextInXhtml(value, out);
+      out.append("</").append(elementName).append(">\n");
+    }
+  }
+
+  /**
+   * Encodes the channel elements that depend only on the configuration of the book.
+   */
+  static String encodeConfigElements(ChannelConfig config) {
+    StringBuilder sb = new StringBuilder();
+    try {
+      writeElement("managingEditor", config.getManagingEditor(), sb);
+      writeElement("webMaster", config.getWebMaster(), sb);
+      sb.append("        <generator>");
+      encodeTextInXhtml(ChannelConfig.GENERATOR, sb);
+      sb.append(' ');
+      encodeTextInXhtml(ChannelConfig.GENERATOR_VERSION, sb);
+      sb.append("</generator>\n");
+      writeElement("docs", ChannelConfig.DOCS, sb);
+      writeElement("ttl", config.getTtl(), sb);
+      writeElement("rating", config.getRating(), sb);
+      if (!config.getSkipHours().isEmpty()) {
+        sb.append("        <skipHours>\n");
+        for (int hour : config.getSkipHours()) {
+          sb.append("            <hour>").append(hour).append("</hour>\n");
+        }
+        sb.append("        </skipHours>\n");
+      }
+      if (!config.getSkipDays().isEmpty()) {
+        sb.append("        <skipDays>\n");
+        for (DayOfWeek day : config.getSkipDays()) {
+          sb.append("            <day>").append(day.getDisplayName(TextStyle.FULL, Locale.ENGLISH)).append("</day>\n");
+        }
+        sb.append("        </skipDays>\n");
+      }
+    } catch (IOException e) {
+      throw new AssertionError("IOException should not occur on StringBuilder", e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes an <code>&lt;atom:link&gt;</code> to this feed, the current feed, an archive page, or a hub.
+   *
+   * @param  type  the type or {@code null} for none
+   */
+  private static void writeAtomLink(String rel, String type, String href, PrintWriter out) throws IOException {
+    if (href != null) {
+      out.print("        <atom:link rel=\"");
+      out.print(rel);
+      if (type != null) {
+        out.print("\" type=\"");
+        textInXhtmlAttributeEncoder.append(type, out);
+      }
+      out.print("\" href=\"");
+      textInXhtmlAttributeEncoder.append(href, out);
+      out.print("\"/>\n");
+    }
+  }
+
+  static void write(FeedChannel channel, PrintWriter out) throws IOException {
+    out.print("<?xml version=\"1.0\" encoding=\"" + RssServlet.ENCODING + "\"?>\n"
+        + "<rss version=\"2.0\" xmlns:atom=\"" + ATOM_NS + '"'
+        + (channel.isArchive() ? (" xmlns:fh=\"" + FeedArchive.FH_NS + '"') : "")
+        + ">\n"
+        + "    <channel>\n");
+    writeElement("title", channel.getTitle(), out);
+    writeElement("link", channel.getLink(), out);
+    // RFC 5005 paging and archiving
+    if (channel.isArchive()) {
+      out.print("        <fh:archive/>\n");
+    }
+    writeAtomLink("self", RssUtils.CONTENT_TYPE, channel.getFeedUrl(), out);
+    // WebSub, only the current feed changes
+    writeAtomLink("hub", null, channel.getHub(), out);
+    writeAtomLink("current", RssUtils.CONTENT_TYPE, channel.getCurrentUrl(), out);
+    writeAtomLink("prev-archive", RssUtils.CONTENT_TYPE, channel.getPrevArchiveUrl(), out);
+    writeAtomLink("next-archive", RssUtils.CONTENT_TYPE, channel.getNextArchiveUrl(), out);
+    writeElement("description", channel.getDescription(), out);
+    writeElement("copyright", channel.getCopyright(), out);
+    if (channel.getLastBuildDate() != null) {
+      out.print("        <lastBuildDate>");
+      FeedWriter.writeDate(channel.getLastBuildDate(), out);
+      out.print("</lastBuildDate>\n");
+    }
+    // managingEditor, webMaster, generator, docs, ttl, rating, skipHours, and skipDays, encoded once per book
+    out.print(channel.getConfig().getRssElements());
+    FeedChannel.Image image = channel.getImage();
+    if (image != null) {
+      out.print("        <image>\n"
+          + "            <url>");
+      encodeTextInXhtml(image.getUrl(), out);
+      out.print("</url>\n"
+          + "            <title>");
+      encodeTextInXhtml(channel.getTitle(), out);
+      out.print("</title>\n"
+          + "            <link>");
+      encodeTextInXhtml(channel.getLink(), out);
+      out.print("</link>\n");
+      if (image.getWidth() != null) {
+        out.print("            <width>");
+        encodeTextInXhtml(image.getWidth(), out);
+        out.print("</width>\n");
+      }
+      if (image.getHeight() != null) {
+        out.print("            <height>");
+        encodeTextInXhtml(image.getHeight(), out);
+        out.print("</height>\n");
+      }
+      if (image.getDescription() != null) {
+        out.print("            <description>");
+        encodeTextInXhtml(image.getDescription(), out);
+        out.print("</description>\n");
+      }
+      out.print("        </image>\n");
+    }
+    // textInput not supported
+    for (FeedChannel.Entry entry : channel.getEntries()) {
+      writeItem(entry, out);
+    }
+    out.print("    </channel>\n"
+        + "</rss>\n");
+  }
+
+  private static void writeItem(FeedChannel.Entry entry, PrintWriter out) throws IOException {
+    FeedItem item = entry.getItem();
+    out.print("        <item>\n"
+        + "            <title>");
+    encodeTextInXhtml(item.getTitle(), out);
+    out.print("</title>\n"
+        + "            <link>");
+    encodeTextInXhtml(item.getLink(), out);
+    out.print("</link>\n");
+    String contentXml = item.getContentXml();
+    if (contentXml != null) {
+      // Since description in RSS 2.0 allows HTML, the content is already encoded as text
+      out.print("            <description>\n");
+      out.print(contentXml);
+      out.print("            </description>\n");
+    }
+    // author possible here, but Author does not currently have email address
+    out.print("            <guid>");
+    encodeTextInXhtml(item.getGuid(), out);
+    out.print("</guid>\n"
+        + "            <pubDate>");
+    FeedWriter.writeDate(item.getPubDate(), out);
+    out.print("</pubDate>\n");
+    // source if from a different page
+    if (entry.getSourceUrl() != null) {
+      out.print("            <source url=\"");
+      textInXhtmlAttributeEncoder.append(entry.getSourceUrl(), out);
+      out.print("\">");
+      encodeTextInXhtml(entry.getSourceTitle(), out);
+      out.print("</source>\n");
+    }
+    out.print("        </item>\n");
+  }
+}
@@ -23,8 +23,6 @@
 
 package com.semanticcms.news.rss;
 
-import static com.aoapps.encoding.TextInXhtmlAttributeEncoder.textInXhtmlAttributeEncoder;
-import static com.aoapps.encoding.TextInXhtmlEncoder.encodeTextInXhtml;
 import static com.aoapps.encoding.TextInXhtmlEncoder.textInXhtmlEncoder;
 
 import com.aoapps.encoding.EncodingContext;
@@ -32,10 +30,8 @@ import com.aoapps.encoding.TextWriter;
 import com.aoapps.encoding.XhtmlWriter;
 import com.aoapps.io.buffer.BufferResult;
 import com.aoapps.lang.attribute.Attribute;
-import com.aoapps.net.URIEncoder;
 import com.aoapps.servlet.ServletContextCache;
 import com.aoapps.servlet.attribute.ScopeEE;
-import com.aoapps.servlet.http.HttpServletUtil;
 import com.semanticcms.core.model.Book;
 import com.semanticcms.core.model.Copyright;
 import com.semanticcms.core.model.Element;
@@ -44,28 +40,53 @@ import com.semanticcms.core.model.Page;
 import com.semanticcms.core.model.PageRef;
 import com.semanticcms.core.servlet.CaptureLevel;
 import com.semanticcms.core.servlet.CapturePage;
-import com.semanticcms.core.servlet.PageRefResolver;
 import com.semanticcms.core.servlet.SemanticCMS;
 import com.semanticcms.core.servlet.ServletElementContext;
 import com.semanticcms.core.servlet.View;
 import com.semanticcms.news.model.News;
-import com.semanticcms.news.servlet.NewsUtils;
 import com.semanticcms.news.servlet.RssUtils;
 import com.semanticcms.news.view.NewsView;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Automated RSS feeds for each page, if it or any of its
@@ -75,93 +96,489 @@ import java.util.Map;
  *   <li><a href="http://webdesign.about.com/od/rss/a/link_rss_feed.htm">http://webdesign.about.com/od/rss/a/link_rss_feed.htm</a></li>
  * </ul>
  *
+ * <p>Each feed is also available as <a href="https://datatracker.ietf.org/doc/html/rfc4287">Atom</a> and
+ * <a href="https://www.jsonfeed.org/version/1.1/">JSON Feed</a>, see {@link FeedFormat}.</p>
+ *
  * <p>TODO: Generate or convert all relative paths to absolute paths to be in strict compliance with RSS.
  *       Then test on Android gReader app which does not currently handle relative paths.</p>
  */
-@WebServlet("*" + RssUtils.EXTENSION)
+@WebServlet(
+    value = {"*" + RssUtils.EXTENSION, "*" + FeedFormat.ATOM_EXTENSION, "*" + FeedFormat.JSON_FEED_EXTENSION},
+    asyncSupported = true,
+    // Validates the configuration of each book at startup
+    loadOnStartup = 1
+)
 public class RssServlet extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
 
-  private static final Charset ENCODING = EncodingContext.XML.getCharacterEncoding();
+  static final Charset ENCODING = EncodingContext.XML.getCharacterEncoding();
+
+  /**
+   * The seconds complete archive pages may be cached, which is one year.
+   */
+  private static final int ARCHIVE_MAX_AGE = 365 * 24 * 60 * 60;
+
+  /**
+   * The response is not given to getLastModified, but we need it for captures to get
+   * the last modified.
+   */
+  private static final ScopeEE.Request.Attribute<HttpServletResponse> RESPONSE_IN_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(RssServlet.class.getName() + ".responseInRequest");
+
+  /**
+   * The page and news found by getLastModified, reused by doGet so the capture work is only done once per request.
+   */
+  private static final ScopeEE.Request.Attribute<Found> FOUND_IN_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(RssServlet.class.getName() + ".foundInRequest");
+
+  /**
+   * The non-blocking write of the content when processed asynchronously.
+   */
+  private static final ScopeEE.Request.Attribute<NonBlockingWrite> NON_BLOCKING_WRITE_IN_REQUEST_ATTRIBUTE =
+      ScopeEE.REQUEST.attribute(RssServlet.class.getName() + ".nonBlockingWriteInRequest");
 
-  private static final String RSS_PARAM_PREFIX = "rss.";
+  /**
+   * The seconds a client is asked to wait before retrying when the asynchronous queue is full.
+   */
+  private static final int ASYNC_RETRY_AFTER = 1;
 
-  private static final String CHANNEL_PARAM_PREFIX = RSS_PARAM_PREFIX + "channel.";
+  /**
+   * The status of polls turned away by admission control.
+   */
+  private static final int SC_TOO_MANY_REQUESTS = 429;
 
-  private static final String IMAGE_PARAM_PREFIX = CHANNEL_PARAM_PREFIX + "image.";
+  /**
+   * The request header of internal requests, such as the {@link RssWarmUp warm-up}, with the random token of this
+   * servlet.  Internal requests are not subject to admission control.
+   */
+  static final String INTERNAL_TOKEN_HEADER = "X-SemanticCMS-RSS-Token";
 
-  private static final String DOCS = "https://cyber.harvard.edu/rss/rss.html";
+  /**
+   * The servlet context attribute holding the random token of internal requests, created each time the servlet is
+   * initialized.
+   */
+  static final ScopeEE.Application.Attribute<String> INTERNAL_TOKEN_APPLICATION_ATTRIBUTE =
+      ScopeEE.APPLICATION.attribute(RssServlet.class.getName() + ".internalToken");
 
   /**
-   * The default max items to include.
+   * The number of random bytes in the token of internal requests.
    */
-  private static final int DEFAULT_MAX_ITEMS = 50;
+  private static final int INTERNAL_TOKEN_BYTES = 16;
 
   /**
-   * Gets a book parameter, null if empty.
+   * Hands <code>GET</code> requests off to the asynchronous executor, when enabled and supported by the
+   * request, so container threads are not held while feeds are captured, rendered, and written.
    */
-  private static String getBookParam(Map<String, String> bookParams, String paramName) {
-    String value = bookParams.get(paramName);
-    if (value != null && value.isEmpty()) {
-      value = null;
+  @Override
+  protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    String method = req.getMethod();
+    boolean internal = isInternal(req);
+    if (internal && "POST".equals(method) && RssWarmUp.WARM_UP_PATH.equals(req.getServletPath())) {
+      startWarmUp(req, resp);
+      return;
     }
-    return value;
+    if (("GET".equals(method) || "HEAD".equals(method)) && !internal && !admit(req, resp)) {
+      return;
+    }
+    ThreadPoolExecutor executor = asyncExecutor;
+    if (executor == null || !"GET".equals(method) || !req.isAsyncSupported()) {
+      serviceFeed(req, resp);
+      return;
+    }
+    AsyncContext asyncContext = req.startAsync();
+    // Rendering is not limited by time, and slow clients hold no thread while written without blocking
+    asyncContext.setTimeout(0);
+    try {
+      executor.execute(() -> serviceAsync(req, resp, asyncContext));
+    } catch (RejectedExecutionException e) {
+      // Feed floods are turned away instead of queuing without bound
+      metrics.asyncRejected.increment();
+      resp.setIntHeader("Retry-After", ASYNC_RETRY_AFTER);
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      asyncContext.complete();
+    }
+  }
+
+  /**
+   * Checks if a request has the token of internal requests.
+   */
+  private boolean isInternal(HttpServletRequest req) {
+    String token = internalToken;
+    String header = req.getHeader(INTERNAL_TOKEN_HEADER);
+    return
+        token != null
+            && header != null
+            && MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII), header.getBytes(StandardCharsets.UTF_8));
   }
 
-  private static void writeChannelParamElement(Map<String, String> bookParams, String elementName, PrintWriter out) throws IOException {
-    String value = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + elementName);
-    if (value != null) {
-      out.print("        <");
-      out.print(elementName);
-      out.print('>');
-      encodeTextInXhtml(value, out);
-      out.print("</");
-      out.print(elementName);
-      out.print(">\n");
+  /**
+   * Hands a request of the warm-up off to the warm-up executor, so no container thread is held while rendering.
+   * Each concurrent request of the same warm-up renders feeds until none remain, so the number of requests sent by
+   * {@link RssWarmUp} is the number of feeds rendered at a time, also limited by the threads of the executor.
+   *
+   * @see  RssWarmUp
+   */
+  private void startWarmUp(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    if (canonicalBase == null) {
+      // Would only warm the cache entries of the host of this request
+      resp.sendError(HttpServletResponse.SC_CONFLICT);
+      return;
+    }
+    if (!req.isAsyncSupported()) {
+      log("Feed warm-up requires asynchronous processing, which is not supported by a filter of "
+          + RssWarmUp.WARM_UP_PATH);
+      resp.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED);
+      return;
+    }
+    AsyncContext asyncContext = req.startAsync();
+    // Not limited by time, since rendering continues until no feeds remain
+    asyncContext.setTimeout(0);
+    try {
+      warmUpExecutor.execute(() -> {
+        try {
+          warmUp(req, resp);
+        } catch (ServletException | RuntimeException e) {
+          log("Feed warm-up failed", e);
+          resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } finally {
+          asyncContext.complete();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      resp.setIntHeader("Retry-After", ASYNC_RETRY_AFTER);
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      asyncContext.complete();
     }
   }
 
   /**
-   * The response is not given to getLastModified, but we need it for captures to get
-   * the last modified.
+   * Gets the feeds of the warm-up in progress, or starts another warm-up with the feed of the content root of each
+   * book and of any additional paths.
    */
-  private static final ScopeEE.Request.Attribute<HttpServletResponse> RESPONSE_IN_REQUEST_ATTRIBUTE =
-      ScopeEE.REQUEST.attribute(RssServlet.class.getName() + ".responseInRequest");
+  private WarmUpQueue<Map.Entry<PageRef, FeedFormat>> getWarmUpQueue(
+      ServletContext servletContext,
+      SemanticCMS semanticCms
+  ) {
+    synchronized (warmUpLock) {
+      WarmUpQueue<Map.Entry<PageRef, FeedFormat>> queue = warmUpQueue;
+      if (queue == null || queue.isFinished()) {
+        queue = new WarmUpQueue<>();
+        for (Book book : semanticCms.getBooks().values()) {
+          queue.add(Map.entry(book.getContentRoot(), FeedFormat.RSS));
+        }
+        String paths = servletContext.getInitParameter(RssWarmUp.PATHS_INIT_PARAM);
+        if (paths != null) {
+          for (String path : paths.trim().split("[,\\s]+")) {
+            FeedFormat format = FeedFormat.forServletPath(path);
+            PageRef pageRef = (format == null) ? null : resolvePageRef(
+                servletContext,
+                semanticCms,
+                path.substring(0, path.length() - format.getExtension().length())
+            );
+            if (pageRef != null) {
+              queue.add(Map.entry(pageRef, format));
+            } else if (!path.isEmpty()) {
+              log("Feed warm-up path not found: " + path);
+            }
+          }
+        }
+        warmUpQueue = queue;
+      }
+      return queue;
+    }
+  }
 
-  @Override
-  protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-    try (Attribute.OldValue old = RESPONSE_IN_REQUEST_ATTRIBUTE.context(req).init(resp)) {
-      super.service(req, resp);
+  /**
+   * Renders feeds of the warm-up into the cache and any store, in-process and with the canonical base, so they are
+   * the same cache entries requested by readers.  Once the feed of a page is rendered, the feeds of every page with
+   * news in its tree are added, as found in the news index, in the same format.
+   */
+  private void warmUp(HttpServletRequest req, HttpServletResponse resp) throws ServletException {
+    final long startNanos = System.nanoTime();
+    ServletContext servletContext = getServletContext();
+    SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
+    View view = findNewsView(semanticCms);
+    WarmUpQueue<Map.Entry<PageRef, FeedFormat>> queue = getWarmUpQueue(servletContext, semanticCms);
+    int rendered = 0;
+    try {
+      Map.Entry<PageRef, FeedFormat> feed;
+      while ((feed = queue.take()) != null) {
+        try {
+          int feeds = warmUp(servletContext, req, resp, view, canonicalBase, feed.getKey(), feed.getValue());
+          if (feeds != -1) {
+            rendered += feeds;
+            for (PageRef pageRef : newsIndex.findPagesWithNews(feed.getKey())) {
+              queue.add(Map.entry(pageRef, feed.getValue()));
+            }
+          }
+        } catch (ServletException | IOException | RuntimeException e) {
+          log("Feed warm-up failed: " + feed.getKey() + feed.getValue().getExtension(), e);
+        } finally {
+          queue.done();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
+    log("Feed warm-up request rendered " + rendered + " feeds in "
+        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+    resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
   }
 
   /**
-   * Finds the page, returns {@code null} when not able to find the page.
+   * Renders the current feed of a page, and all its archive pages, into the cache and any store, unless already
+   * cached.
+   *
+   * @return  the number of feeds rendered or {@code -1} when the page has no feed
    */
-  private static Page findPage(
+  private int warmUp(
       ServletContext servletContext,
       HttpServletRequest req,
       HttpServletResponse resp,
-      SemanticCMS semanticCms
+      View view,
+      String urlBase,
+      PageRef pageRef,
+      FeedFormat format
   ) throws ServletException, IOException {
+    if (!isUrlEncodingShared(resp, pageRef) || newsIndex.isWithoutNews(servletContext, pageRef)) {
+      return -1;
+    }
+    ChannelConfig config = getChannelConfig(pageRef.getBook());
+    if (config == null) {
+      return -1;
+    }
+    Page page = CapturePage.capturePage(servletContext, req, resp, pageRef, CaptureLevel.META);
+    List<News> allNews = newsIndex.findAllNews(servletContext, req, resp, page);
+    if (allNews.isEmpty()) {
+      return -1;
+    }
+    int rendered = 0;
+    for (FeedArchive archive : FeedArchive.all(allNews, config.getMaxItems())) {
+      String etag = FeedETag.compute(servletContext, urlBase, pageRef, view.getName(), format, config.getRssParams(), archive);
+      FeedCache.Key cacheKey = new FeedCache.Key(pageRef, view.getName(), archive.getArchive(), format, urlBase);
+      if (feedCache.get(cacheKey, etag) == null) {
+        renderShared(
+            servletContext, req, resp, page, config, view, archive, format, urlBase, cacheKey, etag,
+            getLastModified(servletContext, page, archive.getNews())
+        );
+        rendered++;
+      }
+    }
+    return rendered;
+  }
+
+  /**
+   * Takes a token from the buckets of the client and of the client's polls of the feed, turning the poll away
+   * before any capture when either is empty.  A conditional poll of a feed that is cached and not modified is
+   * answered with <code>304 Not Modified</code>, others with <code>429 Too Many Requests</code>.  Both ask the
+   * client to wait with <code>Retry-After</code>.  The token of the client is returned when the poll is turned away by
+   * the bucket of the feed, so only admitted polls count toward the rate of the client.
+   *
+   * <p>Internal requests, such as the {@link RssWarmUp warm-up}, are not subject to admission control.</p>
+   *
+   * @return  {@code true} when the request may proceed
+   */
+  private boolean admit(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    TokenBuckets feeds = feedBuckets;
+    TokenBuckets clients = clientBuckets;
+    if (feeds == null && clients == null) {
+      return true;
+    }
+    // Any proxy in front of the container is expected to set the remote address of the client
+    String client = req.getRemoteAddr();
+    long now = System.nanoTime();
+    long waitNanos = 0;
+    if (clients != null) {
+      waitNanos = clients.tryAcquire(client, now);
+    }
+    if (waitNanos == 0 && feeds != null) {
+      // Archive pages are polled separately from the current feed
+      String queryString = req.getQueryString();
+      String feed = (queryString == null) ? req.getServletPath() : (req.getServletPath() + '?' + queryString);
+      waitNanos = feeds.tryAcquire(Map.entry(client, feed), now);
+      if (waitNanos != 0 && clients != null) {
+        clients.release(client);
+      }
+    }
+    if (waitNanos == 0) {
+      return true;
+    }
+    metrics.throttled.increment();
+    resp.setHeader("Retry-After", Long.toString(TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999999999)));
+    if (!sendThrottledNotModified(req, resp)) {
+      resp.sendError(SC_TOO_MANY_REQUESTS);
+    }
+    return false;
+  }
+
+  /**
+   * Answers a throttled conditional poll with <code>304 Not Modified</code> when the feed is cached and not
+   * modified as of its most recent render, without any capture.
+   *
+   * @return  {@code true} when sent, or {@code false} when the poll is not conditional or may be modified
+   */
+  private boolean sendThrottledNotModified(HttpServletRequest req, HttpServletResponse resp) {
+    boolean ifNoneMatch = req.getHeader("If-None-Match") != null;
+    if (!ifNoneMatch && req.getHeader("If-Modified-Since") == null) {
+      return false;
+    }
+    ServletContext servletContext = getServletContext();
+    try {
+      SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
+      PageRef pageRef = findPageRef(servletContext, req, semanticCms);
+      if (pageRef == null || !isUrlEncodingShared(resp, pageRef)) {
+        return false;
+      }
+      String archive = FeedArchive.getRequestedCursor(req);
+      FeedCache.Feed cached = feedCache.peek(
+          new FeedCache.Key(
+              pageRef,
+              findNewsView(semanticCms).getName(),
+              archive,
+              FeedFormat.forServletPath(req.getServletPath()),
+              getUrlBase(req)
+          )
+      );
+      if (cached == null) {
+        return false;
+      }
+      String etag = cached.getEtag();
+      long lastModified = cached.getLastModified();
+      // If-None-Match takes precedence over If-Modified-Since
+      if (
+          ifNoneMatch
+              ? !FeedETag.matchesIfNoneMatch(req, etag)
+              : (lastModified == -1 || lastModified / 1000 > req.getDateHeader("If-Modified-Since") / 1000)
+      ) {
+        return false;
+      }
+      resp.addHeader("Vary", (archive == null) ? "Accept-Encoding, A-IM" : "Accept-Encoding");
+      resp.setHeader("ETag", acceptsGzip(req) ? FeedETag.forContentCoding(etag, GZIP) : etag);
+      if (lastModified != -1) {
+        resp.setDateHeader("Last-Modified", lastModified);
+      }
+      ChannelConfig config = getChannelConfig(pageRef.getBook());
+      if (archive == null && config != null) {
+        setMaxAge(resp, config, true);
+      }
+      resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return true;
+    } catch (ServletException | RuntimeException e) {
+      // Including an invalid If-Modified-Since
+      log("Unable to check throttled poll: " + req.getServletPath(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Sets the <code>Cache-Control</code> of a current feed from the <code>ttl</code>, <code>skipHours</code>, and
+   * <code>skipDays</code> of its book, so readers poll less often.
+   */
+  private static void setMaxAge(HttpServletResponse resp, ChannelConfig config, boolean shared) {
+    long maxAge = config.getMaxAge(System.currentTimeMillis());
+    if (maxAge > 0) {
+      resp.setHeader("Cache-Control", (shared ? "public" : "private") + ", max-age=" + maxAge);
+    }
+  }
+
+  /**
+   * Processes a request on the asynchronous executor, then writes its content with non-blocking I/O.
+   */
+  private void serviceAsync(HttpServletRequest req, HttpServletResponse resp, AsyncContext asyncContext) {
+    NonBlockingWrite write = new NonBlockingWrite(getServletContext(), asyncContext);
+    try {
+      try (Attribute.OldValue old = NON_BLOCKING_WRITE_IN_REQUEST_ATTRIBUTE.context(req).init(write)) {
+        serviceFeed(req, resp);
+      } catch (ServletException | IOException | RuntimeException e) {
+        log("Unable to process feed asynchronously: " + req.getServletPath(), e);
+        if (!resp.isCommitted() && !write.isStarted()) {
+          write.setContent(null);
+          resp.reset();
+          resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log("Unable to send error: " + req.getServletPath(), e);
+    } finally {
+      try {
+        write.finish();
+      } catch (IOException | RuntimeException e) {
+        log("Unable to write feed: " + req.getServletPath(), e);
+        asyncContext.complete();
+      }
+    }
+  }
+
+  /**
+   * Processes a request, which is blocking unless the content is written by a {@link NonBlockingWrite}.
+   */
+  private void serviceFeed(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try (
+        Attribute.OldValue old = RESPONSE_IN_REQUEST_ATTRIBUTE.context(req).init(resp);
+        Attribute.OldValue oldFound = FOUND_IN_REQUEST_ATTRIBUTE.context(req).init(null)
+    ) {
+      super.service(req, resp);
+      failed = false;
+    } finally {
+      RssMetrics m = metrics;
+      if (m != null) {
+        m.requests.increment();
+        m.requestTime.record(System.nanoTime() - startNanos);
+        int status = resp.getStatus();
+        if (failed || status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+          m.errors.increment();
+        } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+          m.notModified.increment();
+        } else if (status == HttpServletResponse.SC_NOT_FOUND) {
+          m.notFound.increment();
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the page from the request path, without capturing it, returns {@code null} when not able to find the page.
+   * The resolution of each path, including those without a page, is cached.
+   */
+  private PageRef findPageRef(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      SemanticCMS semanticCms
+  ) {
     // Path extra info not allowed
     if (req.getPathInfo() != null) {
       return null;
     }
-    // Query string not allowed
-    if (req.getQueryString() != null) {
+    // Only the archive query string allowed
+    if ("".equals(FeedArchive.getRequestedCursor(req))) {
       return null;
     }
     String basePath;
     {
       String servletPath = req.getServletPath();
-      // Must end in expected extension
-      if (!servletPath.endsWith(RssUtils.EXTENSION)) {
+      // Must end in the extension of a format
+      FeedFormat format = FeedFormat.forServletPath(servletPath);
+      if (format == null) {
         return null;
       }
-      basePath = servletPath.substring(0, servletPath.length() - RssUtils.EXTENSION.length());
+      basePath = servletPath.substring(0, servletPath.length() - format.getExtension().length());
     }
+    return feedPathCache.getPageRef(basePath, path -> resolvePageRef(servletContext, semanticCms, path));
+  }
+
+  /**
+   * Resolves the page of a feed path, returns {@code null} when not able to find the page.
+   *
+   * @param  basePath  the servlet path of the feed without its extension
+   */
+  private static PageRef resolvePageRef(
+      ServletContext servletContext,
+      SemanticCMS semanticCms,
+      String basePath
+  ) {
     // Try to find the page, jspx, then jsp, then direct URL without extension
     String pagePath = null;
     for (String extension : RssUtils.getResourceExtensions()) {
@@ -183,24 +600,44 @@ public class RssServlet extends HttpServlet {
     }
     // Find book and path
     Book book = semanticCms.getBook(pagePath);
-    PageRef pageRef;
-    {
-      if (book == null) {
-        return null;
-      }
-      pageRef = new PageRef(
-          book,
-          pagePath.substring(book.getPathPrefix().length())
-      );
+    if (book == null) {
+      return null;
+    }
+    return new PageRef(
+        book,
+        pagePath.substring(book.getPathPrefix().length())
+    );
+  }
+
+  /**
+   * Finds the page, returns {@code null} when not able to find the page or when the page and its child pages are
+   * known to have no news.
+   */
+  private Page findPage(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      SemanticCMS semanticCms
+  ) throws ServletException, IOException {
+    PageRef pageRef = findPageRef(servletContext, req, semanticCms);
+    if (pageRef == null || getChannelConfig(pageRef.getBook()) == null) {
+      return null;
+    }
+    // Not found without any capture while nothing in the tree has changed
+    if (newsIndex.isWithoutNews(servletContext, pageRef)) {
+      return null;
     }
-    // Capture the page
-    return CapturePage.capturePage(
+    // Capture the page, only timed when a capture is done
+    long startNanos = System.nanoTime();
+    Page page = CapturePage.capturePage(
         servletContext,
         req,
         resp,
         pageRef,
         CaptureLevel.META
     );
+    metrics.metaCaptureTime.record(System.nanoTime() - startNanos);
+    return page;
   }
 
   /**
@@ -218,35 +655,147 @@ public class RssServlet extends HttpServlet {
   }
 
   /**
-   * Finds the news, returns {@code null} when not able to find the news.
-   * Limits the number of news entries per book "maxItems" settings.
+   * Gets the configuration of a book, which is normally parsed and validated at startup.
+   * An invalid configuration is logged once and disables the feeds of only that book.
+   *
+   * @return  the configuration or {@code null} when the configuration of the book is invalid
+   */
+  private ChannelConfig getChannelConfig(Book book) {
+    ChannelConfig config = channelConfigs.get(book);
+    if (config == null && !invalidBooks.contains(book)) {
+      try {
+        config = ChannelConfig.of(book);
+      } catch (ServletException e) {
+        if (invalidBooks.add(book)) {
+          log("RSS feeds disabled for book \"" + book.getName() + "\", invalid configuration", e);
+        }
+        return null;
+      }
+      ChannelConfig existing = channelConfigs.putIfAbsent(book, config);
+      if (existing != null) {
+        config = existing;
+      }
+    }
+    return config;
+  }
+
+  /**
+   * Finds the news of the current feed or requested archive page, returns {@code null} when not able to find the news.
+   * Pages the news per book "maxItems" settings.
    */
-  private static List<News> findNews(
+  private FeedArchive findNews(
       ServletContext servletContext,
       HttpServletRequest req,
       HttpServletResponse resp,
       Page page
   ) throws ServletException, IOException {
-    Book book = page.getPageRef().getBook();
-    Map<String, String> bookParams = book.getParam();
-    // Find the news
-    int maxItems;
-    {
-      String maxItemsVal = getBookParam(bookParams, CHANNEL_PARAM_PREFIX + "maxItems");
-      if (maxItemsVal != null) {
-        maxItems = Integer.parseInt(maxItemsVal);
-        if (maxItems < 1) {
-          throw new ServletException("RSS maxItems may not be less than one: " + maxItems);
-        }
+    // Only the pages modified since last indexed are recaptured
+    List<News> allNews = newsIndex.findAllNews(servletContext, req, resp, page);
+    // Only pages that have any news, or any child pages with news, have feeds
+    if (allNews.isEmpty()) {
+      return null;
+    }
+    return FeedArchive.of(
+        allNews,
+        getChannelConfig(page.getPageRef().getBook()).getMaxItems(),
+        FeedArchive.getRequestedCursor(req)
+    );
+  }
+
+  /**
+   * The page, its paged news, and the entity tag of its feed, all {@code null} when not found.
+   */
+  private static final class Found {
+
+    private static final Found NOT_FOUND = new Found(null, null, null);
+
+    private final Page page;
+    private final FeedArchive archive;
+    private final List<News> news;
+    private final String etag;
+
+    private Found(Page page, FeedArchive archive, String etag) {
+      this.page = page;
+      this.archive = archive;
+      this.news = (archive == null) ? null : archive.getNews();
+      this.etag = etag;
+    }
+  }
+
+  /**
+   * Finds the page and its news, only once per request, sharing the recent or concurrent lookup of the same feed by
+   * other requests.
+   */
+  private Found find(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      SemanticCMS semanticCms
+  ) throws ServletException, IOException {
+    Found found = FOUND_IN_REQUEST_ATTRIBUTE.context(req).get();
+    if (found == null) {
+      String servletPath = req.getServletPath();
+      FeedFormat format = FeedFormat.forServletPath(servletPath);
+      String cursor = FeedArchive.getRequestedCursor(req);
+      // Requests not for a feed are not found without sharing any lookup
+      if (format == null || req.getPathInfo() != null || "".equals(cursor)) {
+        found = Found.NOT_FOUND;
       } else {
-        maxItems = DEFAULT_MAX_ITEMS;
+        View view = findNewsView(semanticCms);
+        String urlBase = getUrlBase(req);
+        found = lookupCache.get(
+            new LookupCache.Key(
+                servletPath.substring(0, servletPath.length() - format.getExtension().length()),
+                format,
+                view.getName(),
+                cursor,
+                urlBase
+            ),
+            () -> lookup(servletContext, req, resp, semanticCms, view, format, urlBase),
+            metrics.lookupsShared::increment
+        );
       }
+      FOUND_IN_REQUEST_ATTRIBUTE.context(req).set(found);
+    }
+    return found;
+  }
+
+  /**
+   * Finds the page and its news, and computes the entity tag of its feed.
+   */
+  private Found lookup(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      SemanticCMS semanticCms,
+      View view,
+      FeedFormat format,
+      String urlBase
+  ) throws ServletException, IOException {
+    Page page = findPage(servletContext, req, resp, semanticCms);
+    if (page == null) {
+      return Found.NOT_FOUND;
     }
-    List<News> allNews = NewsUtils.findAllNews(servletContext, req, resp, page);
-    if (allNews.size() > maxItems) {
-      allNews = allNews.subList(0, maxItems);
+    long pageNanos = System.nanoTime();
+    FeedArchive archive = findNews(servletContext, req, resp, page);
+    metrics.findNewsTime.record(System.nanoTime() - pageNanos);
+    if (archive == null) {
+      return Found.NOT_FOUND;
     }
-    return allNews;
+    PageRef pageRef = page.getPageRef();
+    return new Found(
+        page,
+        archive,
+        FeedETag.compute(
+            servletContext,
+            urlBase,
+            pageRef,
+            view.getName(),
+            format,
+            getChannelConfig(pageRef.getBook()).getRssParams(),
+            archive
+        )
+    );
   }
 
   @Override
@@ -255,241 +804,1206 @@ public class RssServlet extends HttpServlet {
       HttpServletResponse resp = RESPONSE_IN_REQUEST_ATTRIBUTE.context(req).get();
       ServletContext servletContext = getServletContext();
       SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
-      // Used several places below
-      Page page = findPage(servletContext, req, resp, semanticCms);
-      if (page == null) {
+      Found found = find(servletContext, req, resp, semanticCms);
+      if (found.page == null || found.news == null) {
         return -1;
       }
-      List<News> rssNews = findNews(
-          servletContext,
-          req,
-          resp,
-          page
-      );
-      if (rssNews == null || rssNews.isEmpty()) {
+      // If-None-Match takes precedence over If-Modified-Since, handled by doGet
+      if (req.getHeader("If-None-Match") != null) {
         return -1;
       }
-      return rssNews.get(0).getPubDate().toInstant().toEpochMilli();
+      return getLastModified(servletContext, found.page, found.news);
     } catch (ServletException | IOException e) {
       log("getLastModified failed", e);
       return -1;
     }
   }
 
-  @Override
-  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-    ServletContext servletContext = getServletContext();
-    SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
-    // Used several places below
-    Page page = findPage(servletContext, req, resp, semanticCms);
-    if (page == null) {
-      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
-      return;
+  /**
+   * Gets the absolute URL base of the feeds of a request, which is the canonical base when configured, otherwise the
+   * scheme, host, port, and context path of the request.
+   */
+  private String getUrlBase(HttpServletRequest req) {
+    String base = canonicalBase;
+    return (base != null) ? base : FeedWriter.getUrlBase(req);
+  }
+
+  /**
+   * Parses the canonical base, removing any trailing slash.
+   *
+   * @return  the canonical base or {@code null} when not configured
+   *
+   * @throws  ServletException  when not an absolute http or https URL without a query or fragment
+   */
+  private static String getCanonicalBase(ServletContext servletContext) throws ServletException {
+    String value = servletContext.getInitParameter(CANONICAL_BASE_INIT_PARAM);
+    if (value == null || (value = value.trim()).isEmpty()) {
+      return null;
     }
-    PageRef pageRef = page.getPageRef();
-    Book book = page.getPageRef().getBook();
-    final Map<String, String> bookParams = book.getParam();
-    final View view = findNewsView(semanticCms);
-    List<News> rssNews = findNews(
-        servletContext,
-        req,
-        resp,
-        page
-    );
-    if (rssNews == null) {
-      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
-      return;
+    URI uri;
+    try {
+      uri = new URI(value);
+    } catch (URISyntaxException e) {
+      throw new ServletException("Invalid " + CANONICAL_BASE_INIT_PARAM + ": " + value, e);
     }
-    resp.resetBuffer();
-    resp.setContentType(RssUtils.CONTENT_TYPE);
-    resp.setCharacterEncoding(ENCODING.name());
-    PrintWriter out = resp.getWriter();
-    out.print("<?xml version=\"1.0\" encoding=\"" + ENCODING + "\"?>\n"
-        + "<rss version=\"2.0\">\n"
-        + "    <channel>\n");
-    String channelTitle = view.getTitle(servletContext, req, resp, page);
-    out.print("        <title>");
-    encodeTextInXhtml(channelTitle, out);
-    out.print("</title>\n");
-    StringBuilder sb = new StringBuilder();
-    String channelLink;
-    {
-      sb.setLength(0);
-      URIEncoder.encodeURI(pageRef.getServletPath(), sb);
-      if (!view.isDefault()) {
-        sb.append("?view=");
-        URIEncoder.encodeURIComponent(view.getName(), sb);
-      }
-      channelLink = URIEncoder.encodeURI(// Encode again to force RFC 3986 US-ASCII
-          resp.encodeURL(
-              HttpServletUtil.getAbsoluteURL(
-                  req,
-                  sb.toString()
-              )
-          )
-      );
+    String scheme = uri.getScheme();
+    if (
+        (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme))
+            || uri.getHost() == null
+            || uri.getRawUserInfo() != null
+            || uri.getRawQuery() != null
+            || uri.getRawFragment() != null
+    ) {
+      throw new ServletException(CANONICAL_BASE_INIT_PARAM + " may not be \"" + value
+          + "\", must be an absolute http or https URL without a query or fragment");
     }
-    out.print("        <link>");
-    encodeTextInXhtml(channelLink, out);
-    out.print("</link>\n"
-        + "        <description>");
-    encodeTextInXhtml(view.getDescription(page), out);
-    out.print("</description>\n");
-    Copyright copyright = view.getCopyright(servletContext, req, resp, page);
-    if (copyright != null && !copyright.isEmpty()) {
-      out.print("        <copyright>");
-      encodeTextInXhtml(copyright.toString(), out);
-      out.print("</copyright>\n");
-    }
-    writeChannelParamElement(bookParams, "managingEditor", out);
-    writeChannelParamElement(bookParams, "webMaster", out);
-    // lastBuildDate is the most recent of the news items listed, which will have been sorted to the top of the news
-    if (!rssNews.isEmpty()) {
-      out.print("        <lastBuildDate>");
-      encodeTextInXhtml(rssNews.get(0).getPubDate().toInstant().atZone(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME), out);
-      out.print("</lastBuildDate>\n");
-    }
-    out.print("        <generator>");
-    encodeTextInXhtml(RssServlet.class.getName(), out);
-    out.print(' ');
-    encodeTextInXhtml(Maven.properties.getProperty("project.version"), out);
-    out.print("</generator>\n"
-        + "        <docs>");
-    encodeTextInXhtml(DOCS, out);
-    out.print("</docs>\n");
-    writeChannelParamElement(bookParams, "ttl", out);
-    // image
-    {
-      String imageUrl = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "url");
-      String imageWidth = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "width");
-      String imageHeight = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "height");
-      String imageDescription = getBookParam(bookParams, IMAGE_PARAM_PREFIX + "description");
-      if (imageUrl != null) {
-        out.print("        <image>\n"
-            + "            <url>");
-        URIEncoder.encodeURI(// Encode again to force RFC 3986 US-ASCII
-            resp.encodeURL(
-                HttpServletUtil.getAbsoluteURL(
-                    req,
-                    URIEncoder.encodeURI(
-                        book.getPathPrefix() + imageUrl
-                    )
-                )
-            ),
-            textInXhtmlEncoder,
-            out
-        );
-        out.print("</url>\n"
-            + "            <title>");
-        encodeTextInXhtml(channelTitle, out);
-        out.print("</title>\n"
-            + "            <link>");
-        encodeTextInXhtml(channelLink, out);
-        out.print("</link>\n");
-        if (imageWidth != null) {
-          out.print("            <width>");
-          encodeTextInXhtml(imageWidth, out);
-          out.print("</width>\n");
-        }
-        if (imageHeight != null) {
-          out.print("            <height>");
-          encodeTextInXhtml(imageHeight, out);
-          out.print("</height>\n");
-        }
-        if (imageDescription != null) {
-          out.print("            <description>");
-          encodeTextInXhtml(imageDescription, out);
-          out.print("</description>\n");
+    while (value.endsWith("/")) {
+      value = value.substring(0, value.length() - 1);
+    }
+    return value;
+  }
+
+  /**
+   * Feeds may only be shared between requests when URL encoding does not add per-request information,
+   * such as a session identifier.
+   */
+  private static boolean isUrlEncodingShared(HttpServletResponse resp, PageRef pageRef) {
+    String servletPath = pageRef.getServletPath();
+    return servletPath.equals(resp.encodeURL(servletPath));
+  }
+
+  /**
+   * Gets the most recent of the newest news <code>pubDate</code> and the modification times of the resources
+   * of the page and all news pages, {@code -1} when unknown.
+   */
+  private static long getLastModified(ServletContext servletContext, Page page, List<News> rssNews) {
+    long lastModified = rssNews.isEmpty() ? -1 : rssNews.get(0).getPubDate().toInstant().toEpochMilli();
+    lastModified = Math.max(lastModified, getResourceLastModified(servletContext, page.getPageRef()));
+    PageRef lastPageRef = null;
+    for (News news : rssNews) {
+      PageRef newsPageRef = news.getPage().getPageRef();
+      // News from the same page are typically adjacent
+      if (!newsPageRef.equals(lastPageRef)) {
+        lastModified = Math.max(lastModified, getResourceLastModified(servletContext, newsPageRef));
+        lastPageRef = newsPageRef;
+      }
+    }
+    return lastModified == 0 ? -1 : lastModified;
+  }
+
+  /**
+   * Gets the modification time of the resource backing a page, {@code 0} when unknown.
+   */
+  private static long getResourceLastModified(ServletContext servletContext, PageRef pageRef) {
+    return ServletContextCache.getLastModified(servletContext, pageRef.getServletPath());
+  }
+
+  /**
+   * Gets an integer context init parameter, using the default when not set.
+   */
+  static int getIntInitParameter(ServletContext servletContext, String name, int defaultValue) throws ServletException {
+    String value = servletContext.getInitParameter(name);
+    if (value == null || (value = value.trim()).isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new ServletException("Invalid " + name + ": " + value, e);
+    }
+  }
+
+  /**
+   * Gets a long context init parameter, using the default when not set.
+   */
+  private static long getLongInitParameter(ServletContext servletContext, String name, long defaultValue) throws ServletException {
+    String value = servletContext.getInitParameter(name);
+    if (value == null || (value = value.trim()).isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new ServletException("Invalid " + name + ": " + value, e);
+    }
+  }
+
+  /**
+   * The context init parameter that limits the number of feeds cached.
+   */
+  public static final String CACHE_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".cache.maxEntries";
+
+  /**
+   * The context init parameter that limits the total bytes of all feeds cached.
+   */
+  public static final String CACHE_MAX_BYTES_INIT_PARAM = RssServlet.class.getName() + ".cache.maxBytes";
+
+  /**
+   * The context init parameter that limits the number of items cached.
+   */
+  public static final String ITEM_CACHE_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".itemCache.maxEntries";
+
+  /**
+   * The context init parameter that limits the total characters of all items cached.
+   */
+  public static final String ITEM_CACHE_MAX_CHARS_INIT_PARAM = RssServlet.class.getName() + ".itemCache.maxChars";
+
+  /**
+   * The context init parameter that limits the number of pages and feeds in the news index.
+   */
+  public static final String NEWS_INDEX_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".newsIndex.maxEntries";
+
+  /**
+   * The context init parameter that limits the number of feed paths cached.
+   */
+  public static final String PATH_CACHE_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".pathCache.maxEntries";
+
+  /**
+   * The context init parameter that sets the seconds the resolution of each feed path is reused.
+   */
+  public static final String PATH_CACHE_TTL_INIT_PARAM = RssServlet.class.getName() + ".pathCache.ttl";
+
+  /**
+   * The context init parameter that limits the number of feed lookups cached.
+   */
+  public static final String LOOKUP_CACHE_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".lookupCache.maxEntries";
+
+  /**
+   * The context init parameter that sets the seconds the lookup of the page, news, and entity tag of each feed is
+   * shared with later requests.  When zero, only concurrent lookups are shared.
+   */
+  public static final String LOOKUP_CACHE_TTL_INIT_PARAM = RssServlet.class.getName() + ".lookupCache.ttl";
+
+  /**
+   * The context init parameter that limits the number of news targets cached.
+   */
+  public static final String PAGE_REF_CACHE_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".pageRefCache.maxEntries";
+
+  /**
+   * The context init parameter of the absolute URL of the context path as used by readers, such as
+   * <code>https://example.com</code>.  When set, the absolute URLs in all feeds, and the keys of the cache and
+   * store, are built from it instead of from the host of each request, so the number of cached and stored feeds does
+   * not depend on the <code>Host</code> headers sent.
+   */
+  public static final String CANONICAL_BASE_INIT_PARAM = RssServlet.class.getName() + ".canonicalBase";
+
+  /**
+   * The context init parameter that enables storing rendered feeds as files in the given directory.
+   */
+  public static final String STORE_DIRECTORY_INIT_PARAM = RssServlet.class.getName() + ".store.directory";
+
+  /**
+   * The context init parameter that limits the total bytes of all feeds stored as files.
+   */
+  public static final String STORE_MAX_BYTES_INIT_PARAM = RssServlet.class.getName() + ".store.maxBytes";
+
+  /**
+   * The context init parameter that enables asynchronous processing with the given number of threads.
+   */
+  public static final String ASYNC_THREADS_INIT_PARAM = RssServlet.class.getName() + ".async.threads";
+
+  /**
+   * The context init parameter that limits the number of requests waiting for an asynchronous thread.
+   */
+  public static final String ASYNC_QUEUE_SIZE_INIT_PARAM = RssServlet.class.getName() + ".async.queueSize";
+
+  /**
+   * The default maximum number of requests waiting for an asynchronous thread.
+   */
+  private static final int DEFAULT_ASYNC_QUEUE_SIZE = 100;
+
+  /**
+   * The context init parameter that enables admission control of the polls of each feed by each client, as the
+   * average seconds between polls.
+   */
+  public static final String ADMISSION_FEED_INTERVAL_INIT_PARAM = RssServlet.class.getName() + ".admission.feedInterval";
+
+  /**
+   * The context init parameter that sets the number of polls of each feed by each client allowed in a burst.
+   */
+  public static final String ADMISSION_FEED_BURST_INIT_PARAM = RssServlet.class.getName() + ".admission.feedBurst";
+
+  /**
+   * The context init parameter that enables admission control of all polls by each client, as polls per minute.
+   */
+  public static final String ADMISSION_CLIENT_RATE_INIT_PARAM = RssServlet.class.getName() + ".admission.clientRate";
+
+  /**
+   * The context init parameter that sets the number of polls by each client allowed in a burst.
+   */
+  public static final String ADMISSION_CLIENT_BURST_INIT_PARAM = RssServlet.class.getName() + ".admission.clientBurst";
+
+  /**
+   * The context init parameter that limits the number of token buckets kept for each kind of admission control.
+   */
+  public static final String ADMISSION_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".admission.maxEntries";
+
+  /**
+   * The context init parameter that sets the seconds between in-process checks of every page tracked for WebSub
+   * publish pings, so changes are noticed once subscribers stop polling, or {@code 0} to only notice changes when
+   * feeds are requested.  Nothing is requested over HTTP by the check.
+   */
+  public static final String WEBSUB_CHECK_INTERVAL_INIT_PARAM = RssServlet.class.getName() + ".websub.checkInterval";
+
+  private static final int DEFAULT_WEBSUB_CHECK_INTERVAL = 60;
+
+  /**
+   * The context init parameter that limits the number of pages tracked for WebSub publish pings.
+   */
+  public static final String WEBSUB_MAX_ENTRIES_INIT_PARAM = RssServlet.class.getName() + ".websub.maxEntries";
+
+  /**
+   * The default number of polls of each feed by each client allowed in a burst.
+   */
+  private static final int DEFAULT_ADMISSION_FEED_BURST = 3;
+
+  /**
+   * The default number of polls by each client allowed in a burst.
+   */
+  private static final int DEFAULT_ADMISSION_CLIENT_BURST = 60;
+
+  /**
+   * The absolute URL base of all feeds, {@code null} when taken from each request.
+   */
+  private transient String canonicalBase;
+
+  /**
+   * The random token of internal requests.
+   */
+  private transient String internalToken;
+
+  private transient FeedCache feedCache;
+
+  private transient FeedStore feedStore;
+
+  private transient ItemCache itemCache;
+
+  private transient NewsIndex newsIndex;
+
+  private transient PageRefCache pageRefCache;
+
+  private transient FeedPathCache feedPathCache;
+
+  private transient LookupCache<Found> lookupCache;
+
+  /**
+   * The configuration of each book, parsed and validated once.
+   */
+  private final transient ConcurrentMap<Book, ChannelConfig> channelConfigs = new ConcurrentHashMap<>();
+
+  /**
+   * The books with an invalid configuration, which have no feeds.
+   */
+  private final transient Set<Book> invalidBooks = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The executor of asynchronous processing, {@code null} when disabled.
+   */
+  private transient ThreadPoolExecutor asyncExecutor;
+
+  /**
+   * The executor of warm-up requests, with threads of lower priority than those of readers.
+   */
+  private transient ThreadPoolExecutor warmUpExecutor;
+
+  private final transient Object warmUpLock = new Object();
+
+  /**
+   * The feeds of the latest warm-up, {@code null} before any warm-up.
+   */
+  private transient WarmUpQueue<Map.Entry<PageRef, FeedFormat>> warmUpQueue;
+
+  /**
+   * The token buckets of the polls of each feed by each client, {@code null} when disabled.
+   */
+  private transient TokenBuckets feedBuckets;
+
+  /**
+   * The token buckets of all polls by each client, {@code null} when disabled.
+   */
+  private transient TokenBuckets clientBuckets;
+
+  /**
+   * The sender of WebSub publish pings, {@code null} when no book has a hub.
+   */
+  private transient WebSubPublisher webSubPublisher;
+
+  /**
+   * The renders in progress, by feed and entity tag.
+   */
+  private final transient SingleFlight<Map.Entry<FeedCache.Key, String>, FeedCache.Feed> renders = new SingleFlight<>();
+
+  /**
+   * The feeds being re-rendered after being served stale.
+   */
+  private final transient Set<FeedCache.Key> revalidating = ConcurrentHashMap.newKeySet();
+
+  private transient RssMetrics metrics;
+
+  private transient ObjectName metricsName;
+
+  @Override
+  public void init() throws ServletException {
+    ServletContext servletContext = getServletContext();
+    // Invalid configuration is reported at startup instead of on the first request
+    for (Book book : SemanticCMS.getInstance(servletContext).getBooks().values()) {
+      getChannelConfig(book);
+    }
+    canonicalBase = getCanonicalBase(servletContext);
+    byte[] tokenBytes = new byte[INTERNAL_TOKEN_BYTES];
+    new SecureRandom().nextBytes(tokenBytes);
+    internalToken = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+    INTERNAL_TOKEN_APPLICATION_ATTRIBUTE.context(servletContext).set(internalToken);
+    feedCache = new FeedCache(
+        getIntInitParameter(servletContext, CACHE_MAX_ENTRIES_INIT_PARAM, FeedCache.DEFAULT_MAX_ENTRIES),
+        getLongInitParameter(servletContext, CACHE_MAX_BYTES_INIT_PARAM, FeedCache.DEFAULT_MAX_BYTES)
+    );
+    String storeDirectory = servletContext.getInitParameter(STORE_DIRECTORY_INIT_PARAM);
+    if (storeDirectory != null && !(storeDirectory = storeDirectory.trim()).isEmpty()) {
+      long storeMaxBytes = getLongInitParameter(servletContext, STORE_MAX_BYTES_INIT_PARAM, FeedStore.DEFAULT_MAX_BYTES);
+      if (storeMaxBytes < 1) {
+        throw new ServletException(STORE_MAX_BYTES_INIT_PARAM + " may not be less than one: " + storeMaxBytes);
+      }
+      try {
+        feedStore = new FeedStore(Paths.get(storeDirectory), storeMaxBytes);
+      } catch (IOException | InvalidPathException e) {
+        throw new ServletException("Invalid " + STORE_DIRECTORY_INIT_PARAM + ": " + storeDirectory, e);
+      }
+    }
+    itemCache = new ItemCache(
+        getIntInitParameter(servletContext, ITEM_CACHE_MAX_ENTRIES_INIT_PARAM, ItemCache.DEFAULT_MAX_ENTRIES),
+        getLongInitParameter(servletContext, ITEM_CACHE_MAX_CHARS_INIT_PARAM, ItemCache.DEFAULT_MAX_CHARS)
+    );
+    newsIndex = new NewsIndex(
+        getIntInitParameter(servletContext, NEWS_INDEX_MAX_ENTRIES_INIT_PARAM, NewsIndex.DEFAULT_MAX_ENTRIES)
+    );
+    pageRefCache = new PageRefCache(
+        getIntInitParameter(servletContext, PAGE_REF_CACHE_MAX_ENTRIES_INIT_PARAM, PageRefCache.DEFAULT_MAX_ENTRIES)
+    );
+    int pathCacheTtl = getIntInitParameter(servletContext, PATH_CACHE_TTL_INIT_PARAM, FeedPathCache.DEFAULT_TTL);
+    if (pathCacheTtl < 0) {
+      throw new ServletException(PATH_CACHE_TTL_INIT_PARAM + " may not be negative: " + pathCacheTtl);
+    }
+    feedPathCache = new FeedPathCache(
+        getIntInitParameter(servletContext, PATH_CACHE_MAX_ENTRIES_INIT_PARAM, FeedPathCache.DEFAULT_MAX_ENTRIES),
+        pathCacheTtl
+    );
+    int lookupCacheTtl = getIntInitParameter(servletContext, LOOKUP_CACHE_TTL_INIT_PARAM, LookupCache.DEFAULT_TTL);
+    if (lookupCacheTtl < 0) {
+      throw new ServletException(LOOKUP_CACHE_TTL_INIT_PARAM + " may not be negative: " + lookupCacheTtl);
+    }
+    lookupCache = new LookupCache<>(
+        getIntInitParameter(servletContext, LOOKUP_CACHE_MAX_ENTRIES_INIT_PARAM, LookupCache.DEFAULT_MAX_ENTRIES),
+        lookupCacheTtl
+    );
+    int asyncThreads = getIntInitParameter(servletContext, ASYNC_THREADS_INIT_PARAM, 0);
+    if (asyncThreads < 0) {
+      throw new ServletException(ASYNC_THREADS_INIT_PARAM + " may not be negative: " + asyncThreads);
+    }
+    if (asyncThreads != 0) {
+      int asyncQueueSize = getIntInitParameter(servletContext, ASYNC_QUEUE_SIZE_INIT_PARAM, DEFAULT_ASYNC_QUEUE_SIZE);
+      if (asyncQueueSize < 1) {
+        throw new ServletException(ASYNC_QUEUE_SIZE_INIT_PARAM + " may not be less than one: " + asyncQueueSize);
+      }
+      AtomicInteger threadNum = new AtomicInteger();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(
+          asyncThreads,
+          asyncThreads,
+          60,
+          TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(asyncQueueSize),
+          r -> {
+            Thread thread = new Thread(r, RssServlet.class.getName() + "-async-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+      );
+      executor.allowCoreThreadTimeOut(true);
+      asyncExecutor = executor;
+    }
+    int warmUpConcurrency = getIntInitParameter(servletContext, RssWarmUp.CONCURRENCY_INIT_PARAM, RssWarmUp.DEFAULT_CONCURRENCY);
+    if (warmUpConcurrency < 1) {
+      throw new ServletException(RssWarmUp.CONCURRENCY_INIT_PARAM + " may not be less than one: " + warmUpConcurrency);
+    }
+    AtomicInteger warmUpThreadNum = new AtomicInteger();
+    ThreadPoolExecutor warmUp = new ThreadPoolExecutor(
+        warmUpConcurrency,
+        warmUpConcurrency,
+        60,
+        TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(warmUpConcurrency),
+        r -> {
+          Thread thread = new Thread(r, RssServlet.class.getName() + "-warmUp-" + warmUpThreadNum.incrementAndGet());
+          thread.setDaemon(true);
+          thread.setPriority(Thread.NORM_PRIORITY - 1);
+          return thread;
         }
-        out.print("        </image>\n");
+    );
+    // No threads are kept while not warming up
+    warmUp.allowCoreThreadTimeOut(true);
+    warmUpExecutor = warmUp;
+    int admissionMaxEntries = getIntInitParameter(servletContext, ADMISSION_MAX_ENTRIES_INIT_PARAM, TokenBuckets.DEFAULT_MAX_ENTRIES);
+    if (admissionMaxEntries < 1) {
+      throw new ServletException(ADMISSION_MAX_ENTRIES_INIT_PARAM + " may not be less than one: " + admissionMaxEntries);
+    }
+    int feedInterval = getIntInitParameter(servletContext, ADMISSION_FEED_INTERVAL_INIT_PARAM, 0);
+    if (feedInterval < 0) {
+      throw new ServletException(ADMISSION_FEED_INTERVAL_INIT_PARAM + " may not be negative: " + feedInterval);
+    }
+    if (feedInterval != 0) {
+      int feedBurst = getIntInitParameter(servletContext, ADMISSION_FEED_BURST_INIT_PARAM, DEFAULT_ADMISSION_FEED_BURST);
+      if (feedBurst < 1) {
+        throw new ServletException(ADMISSION_FEED_BURST_INIT_PARAM + " may not be less than one: " + feedBurst);
+      }
+      feedBuckets = new TokenBuckets(admissionMaxEntries, feedBurst, TimeUnit.SECONDS.toNanos(feedInterval));
+    }
+    int clientRate = getIntInitParameter(servletContext, ADMISSION_CLIENT_RATE_INIT_PARAM, 0);
+    if (clientRate < 0) {
+      throw new ServletException(ADMISSION_CLIENT_RATE_INIT_PARAM + " may not be negative: " + clientRate);
+    }
+    if (clientRate != 0) {
+      int clientBurst = getIntInitParameter(servletContext, ADMISSION_CLIENT_BURST_INIT_PARAM, DEFAULT_ADMISSION_CLIENT_BURST);
+      if (clientBurst < 1) {
+        throw new ServletException(ADMISSION_CLIENT_BURST_INIT_PARAM + " may not be less than one: " + clientBurst);
+      }
+      clientBuckets = new TokenBuckets(admissionMaxEntries, clientBurst, (double) TimeUnit.MINUTES.toNanos(1) / clientRate);
+    }
+    metrics = new RssMetrics(feedCache, itemCache);
+    RssMetrics.APPLICATION_ATTRIBUTE.context(servletContext).set(metrics);
+    if (channelConfigs.values().stream().anyMatch(config -> config.getHub() != null)) {
+      if (canonicalBase == null) {
+        // Topics would be taken from the host of each request
+        log("WebSub disabled, requires " + CANONICAL_BASE_INIT_PARAM);
       } else {
-        // Others must not be provided
-        if (imageWidth != null) {
-          throw new ServletException("RSS image width without url");
-        }
-        if (imageHeight != null) {
-          throw new ServletException("RSS image height without url");
+        int checkInterval = getIntInitParameter(servletContext, WEBSUB_CHECK_INTERVAL_INIT_PARAM, DEFAULT_WEBSUB_CHECK_INTERVAL);
+        if (checkInterval < 0) {
+          throw new ServletException(WEBSUB_CHECK_INTERVAL_INIT_PARAM + " may not be negative: " + checkInterval);
         }
-        if (imageDescription != null) {
-          throw new ServletException("RSS image description without url");
+        int webSubMaxEntries = getIntInitParameter(servletContext, WEBSUB_MAX_ENTRIES_INIT_PARAM, WebSubPublisher.DEFAULT_MAX_ENTRIES);
+        if (webSubMaxEntries < 1) {
+          throw new ServletException(WEBSUB_MAX_ENTRIES_INIT_PARAM + " may not be less than one: " + webSubMaxEntries);
         }
+        webSubPublisher = new WebSubPublisher(
+            servletContext, metrics, canonicalBase, newsIndex, webSubMaxEntries, checkInterval
+        );
       }
     }
-    writeChannelParamElement(bookParams, "rating", out);
-    // textInput not supported
-    // skipHours not supported
-    // skipDays not supported
-    for (News news : rssNews) {
-      out.print("        <item>\n"
-          + "            <title>");
-      encodeTextInXhtml(news.getTitle(), out);
-      out.print("</title>\n"
-          + "            <link>");
-      PageRef targetPageRef = PageRefResolver.getPageRef(
-          servletContext,
-          req,
-          news.getBook(),
-          news.getTargetPage()
+    try {
+      ObjectName name = new ObjectName(
+          RssServlet.class.getPackage().getName() + ":type=" + RssServlet.class.getSimpleName()
+              + ",context=" + ObjectName.quote(servletContext.getContextPath())
       );
-      String targetServletPath;
-      {
-        sb.setLength(0);
-        URIEncoder.encodeURI(targetPageRef.getServletPath(), sb);
-        if (!news.getView().equals(SemanticCMS.DEFAULT_VIEW_NAME)) {
-          sb.append("?view=");
-          URIEncoder.encodeURIComponent(news.getView(), sb);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+      metricsName = name;
+    } catch (JMException e) {
+      // Metrics are still available as a servlet context attribute
+      log("Unable to register metrics MBean", e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    ThreadPoolExecutor executor = asyncExecutor;
+    if (executor != null) {
+      // Requests already accepted are still processed
+      executor.shutdown();
+      asyncExecutor = null;
+    }
+    ThreadPoolExecutor warmUp = warmUpExecutor;
+    if (warmUp != null) {
+      // Requests waiting for more feeds are interrupted
+      warmUp.shutdownNow();
+      warmUpExecutor = null;
+    }
+    synchronized (warmUpLock) {
+      warmUpQueue = null;
+    }
+    WebSubPublisher publisher = webSubPublisher;
+    if (publisher != null) {
+      publisher.shutdown();
+      webSubPublisher = null;
+    }
+    ObjectName name = metricsName;
+    if (name != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      } catch (JMException e) {
+        log("Unable to unregister metrics MBean", e);
+      }
+      metricsName = null;
+    }
+    RssMetrics.APPLICATION_ATTRIBUTE.context(getServletContext()).remove();
+    INTERNAL_TOKEN_APPLICATION_ATTRIBUTE.context(getServletContext()).remove();
+    internalToken = null;
+    FeedCache cache = feedCache;
+    if (cache != null) {
+      cache.clear();
+      feedCache = null;
+    }
+    // Stored feeds are kept for the next start
+    feedStore = null;
+    ItemCache items = itemCache;
+    if (items != null) {
+      items.clear();
+      itemCache = null;
+    }
+    NewsIndex index = newsIndex;
+    if (index != null) {
+      index.clear();
+      newsIndex = null;
+    }
+    FeedPathCache paths = feedPathCache;
+    if (paths != null) {
+      paths.clear();
+      feedPathCache = null;
+    }
+    LookupCache<Found> lookups = lookupCache;
+    if (lookups != null) {
+      lookups.clear();
+      lookupCache = null;
+    }
+    channelConfigs.clear();
+    invalidBooks.clear();
+    TokenBuckets feeds = feedBuckets;
+    if (feeds != null) {
+      feeds.clear();
+      feedBuckets = null;
+    }
+    TokenBuckets clients = clientBuckets;
+    if (clients != null) {
+      clients.clear();
+      clientBuckets = null;
+    }
+    PageRefCache targets = pageRefCache;
+    if (targets != null) {
+      targets.clear();
+      pageRefCache = null;
+    }
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    try {
+      doGetFeed(req, resp);
+    } catch (ServletException | IOException | RuntimeException e) {
+      // A failure serves the last rendered feed during its grace period instead of an error
+      if (resp.isCommitted() || !sendStaleOnError(req, resp, e)) {
+        throw e;
+      }
+    }
+  }
+
+  private void doGetFeed(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    ServletContext servletContext = getServletContext();
+    SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
+    // Reuses the capture work already done by getLastModified
+    Found found = find(servletContext, req, resp, semanticCms);
+    Page page = found.page;
+    FeedArchive archive = found.archive;
+    List<News> rssNews = found.news;
+    if (page == null || rssNews == null) {
+      resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    final View view = findNewsView(semanticCms);
+    final ChannelConfig config = getChannelConfig(page.getPageRef().getBook());
+    // The format was already checked by findPageRef
+    final FeedFormat format = FeedFormat.forServletPath(req.getServletPath());
+    String urlBase = getUrlBase(req);
+    // Computed by the lookup shared with other requests
+    String etag = found.etag;
+    // Only shared feeds are cached with a precompressed copy
+    final boolean shared = isUrlEncodingShared(resp, page.getPageRef());
+    final boolean gzip = shared && acceptsGzip(req);
+    // Only the current feed has delta feeds
+    final boolean current = archive.getArchive() == null;
+    resp.addHeader("Vary", current ? "Accept-Encoding, A-IM" : "Accept-Encoding");
+    WebSubPublisher publisher = webSubPublisher;
+    String hub = config.getHub();
+    if (publisher != null && hub != null && current && shared) {
+      // The self URL is the topic, exactly as written in the feed, which is under the canonical base
+      String topic = new FeedWriter(urlBase, resp, true).getUrl(format.getServletPath(page), null, null);
+      resp.addHeader("Link", '<' + hub + ">; rel=\"hub\"");
+      resp.addHeader("Link", '<' + topic + ">; rel=\"self\"");
+      publisher.update(page.getPageRef(), hub, topic, rssNews.get(0).getPubDate().toInstant().toEpochMilli());
+    }
+    resp.setHeader("ETag", gzip ? FeedETag.forContentCoding(etag, GZIP) : etag);
+    final long lastModified = getLastModified(servletContext, page, rssNews);
+    if (lastModified != -1 && !resp.containsHeader("Last-Modified")) {
+      resp.setDateHeader("Last-Modified", lastModified);
+    }
+    if (archive.getArchive() != null && archive.getNextArchive() != null) {
+      // Complete archive pages with a newer archive page do not change
+      resp.setHeader("Cache-Control", "public, max-age=" + ARCHIVE_MAX_AGE);
+    } else if (current) {
+      setMaxAge(resp, config, shared);
+    }
+    if (FeedETag.matchesIfNoneMatch(req, etag)) {
+      // Answered before rendering any item bodies
+      resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+    if (current && FeedDelta.acceptsFeed(req)) {
+      int newer = FeedDelta.getNewerCount(req, rssNews);
+      // Edits to news the client already has are only sent in the entire feed
+      if (newer > 0 && !FeedDelta.isOlderModified(servletContext, req, rssNews, newer)) {
+        // Only the news newer than the version the client has, never cached
+        byte[] delta = renderFeed(
+            servletContext,
+            req,
+            resp,
+            page,
+            config,
+            view,
+            archive.newest(newer),
+            format,
+            urlBase,
+            shared ? itemCache : null,
+            pageRefCache,
+            metrics
+        );
+        if (gzip) {
+          delta = FeedCache.gzip(delta);
         }
-        String element = news.getElement();
-        if (element != null) {
-          sb.append('#');
-          URIEncoder.encodeURIComponent(element, sb);
+        resp.setStatus(FeedDelta.SC_IM_USED);
+        resp.setHeader("IM", FeedDelta.FEED_IM);
+        resp.setHeader("Cache-Control", "no-store, im");
+        setFeedHeaders(resp, format, gzip, delta.length);
+        sendContent(req, resp, delta);
+        metrics.deltas.increment();
+        metrics.bytesWritten.add(delta.length);
+        return;
+      }
+    }
+    byte[] feed;
+    if (shared) {
+      FeedCache.Key cacheKey = new FeedCache.Key(page.getPageRef(), view.getName(), archive.getArchive(), format, urlBase);
+      FeedCache.Feed cached = feedCache.get(cacheKey, etag);
+      if (cached == null) {
+        FeedStore store = feedStore;
+        if (store != null) {
+          try (FileChannel stored = store.open(cacheKey, etag, gzip)) {
+            if (stored != null) {
+              long size = stored.size();
+              setFeedHeaders(resp, format, gzip, size);
+              NonBlockingWrite write = NON_BLOCKING_WRITE_IN_REQUEST_ATTRIBUTE.context(req).get();
+              if (write != null) {
+                // The mapping remains valid once the channel is closed
+                write.setContent(stored.map(FileChannel.MapMode.READ_ONLY, 0, size));
+              } else {
+                FeedStore.transferTo(stored, resp.getOutputStream());
+              }
+              metrics.feedStoreHits.increment();
+              metrics.bytesWritten.add(size);
+              return;
+            }
+          }
         }
-        targetServletPath = sb.toString();
+        int staleWhileRevalidate = config.getStaleWhileRevalidate();
+        if (staleWhileRevalidate != 0) {
+          FeedCache.Feed stale = feedCache.getStale(cacheKey, staleWhileRevalidate * 1000L);
+          if (stale != null) {
+            sendStale(req, resp, format, stale, gzip);
+            // Completes the response before re-rendering, once per feed at a time
+            closeContent(req, resp);
+            if (revalidating.add(cacheKey)) {
+              try {
+                renderShared(servletContext, req, resp, page, config, view, archive, format, urlBase, cacheKey, etag, lastModified);
+              } catch (ServletException | IOException | RuntimeException e) {
+                log("Unable to revalidate feed: " + cacheKey, e);
+              } finally {
+                revalidating.remove(cacheKey);
+              }
+            }
+            return;
+          }
+        }
+        cached = renderShared(servletContext, req, resp, page, config, view, archive, format, urlBase, cacheKey, etag, lastModified);
       }
-      URIEncoder.encodeURI(// Encode again to force RFC 3986 US-ASCII
-          resp.encodeURL(
-              HttpServletUtil.getAbsoluteURL(
-                  req,
-                  targetServletPath
-              )
+      feed = gzip ? cached.getGzipBytes() : cached.getBytes();
+    } else {
+      feed = renderFeed(servletContext, req, resp, page, config, view, archive, format, urlBase, null, pageRefCache, metrics);
+    }
+    setFeedHeaders(resp, format, gzip, feed.length);
+    sendContent(req, resp, feed);
+    metrics.bytesWritten.add(feed.length);
+  }
+
+  /**
+   * Renders a feed into the cache and any store.
+   * Concurrent requests for the same version of the feed share one render.
+   */
+  private FeedCache.Feed renderShared(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      Page page,
+      ChannelConfig config,
+      View view,
+      FeedArchive archive,
+      FeedFormat format,
+      String urlBase,
+      FeedCache.Key cacheKey,
+      String etag,
+      long lastModified
+  ) throws ServletException, IOException {
+    return renders.execute(
+        Map.entry(cacheKey, etag),
+        () -> {
+          FeedCache.Feed rendered = feedCache.put(
+              cacheKey,
+              etag,
+              lastModified,
+              renderFeed(servletContext, req, resp, page, config, view, archive, format, urlBase, itemCache, pageRefCache, metrics)
+          );
+          FeedStore store = feedStore;
+          // A per-start entity tag would be unverifiable after a restart
+          if (store != null && !FeedETag.isPerStart(etag)) {
+            try {
+              store.put(cacheKey, etag, rendered);
+            } catch (IOException e) {
+              // Still served from memory
+              log("Unable to store feed: " + cacheKey, e);
+            }
+          }
+          return rendered;
+        },
+        metrics.coalesced::increment
+    );
+  }
+
+  /**
+   * Sends a stale feed, replacing the validators of the current version with those of the stale feed.
+   */
+  private void sendStale(
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      FeedFormat format,
+      FeedCache.Feed stale,
+      boolean gzip
+  ) throws IOException {
+    metrics.staleServed.increment();
+    String staleEtag = stale.getEtag();
+    resp.setHeader("ETag", gzip ? FeedETag.forContentCoding(staleEtag, GZIP) : staleEtag);
+    long staleLastModified = stale.getLastModified();
+    if (staleLastModified != -1) {
+      resp.setDateHeader("Last-Modified", staleLastModified);
+    }
+    if (FeedETag.matchesIfNoneMatch(req, staleEtag)) {
+      resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+    byte[] feed = gzip ? stale.getGzipBytes() : stale.getBytes();
+    setFeedHeaders(resp, format, gzip, feed.length);
+    sendContent(req, resp, feed);
+    metrics.bytesWritten.add(feed.length);
+  }
+
+  /**
+   * Sends the last rendered feed after a failure, when within the grace period of its book.
+   *
+   * @return  {@code true} when sent, or {@code false} when there is no feed to send
+   */
+  private boolean sendStaleOnError(HttpServletRequest req, HttpServletResponse resp, Throwable failure) throws IOException {
+    ServletContext servletContext = getServletContext();
+    FeedFormat format;
+    boolean gzip;
+    FeedCache.Feed stale;
+    try {
+      SemanticCMS semanticCms = SemanticCMS.getInstance(servletContext);
+      PageRef pageRef = findPageRef(servletContext, req, semanticCms);
+      if (pageRef == null || !isUrlEncodingShared(resp, pageRef)) {
+        return false;
+      }
+      ChannelConfig config = getChannelConfig(pageRef.getBook());
+      int staleWhileRevalidate = (config == null) ? 0 : config.getStaleWhileRevalidate();
+      if (staleWhileRevalidate == 0) {
+        return false;
+      }
+      format = FeedFormat.forServletPath(req.getServletPath());
+      stale = feedCache.getStale(
+          new FeedCache.Key(
+              pageRef,
+              findNewsView(semanticCms).getName(),
+              FeedArchive.getRequestedCursor(req),
+              format,
+              getUrlBase(req)
           ),
-          textInXhtmlEncoder,
-          out
+          staleWhileRevalidate * 1000L
       );
-      out.print("</link>\n");
+      if (stale == null) {
+        return false;
+      }
+      gzip = acceptsGzip(req);
+    } catch (ServletException | RuntimeException e) {
+      failure.addSuppressed(e);
+      return false;
+    }
+    log("Serving stale feed after failure: " + req.getServletPath(), failure);
+    resp.setStatus(HttpServletResponse.SC_OK);
+    if (!resp.containsHeader("Vary")) {
+      resp.addHeader("Vary", "Accept-Encoding");
+    }
+    sendStale(req, resp, format, stale, gzip);
+    return true;
+  }
 
-      String description = news.getDescription();
+  /**
+   * Sends the content of the feed, which is written once processing is done when written without blocking.
+   */
+  private static void sendContent(HttpServletRequest req, HttpServletResponse resp, byte[] content) throws IOException {
+    NonBlockingWrite write = NON_BLOCKING_WRITE_IN_REQUEST_ATTRIBUTE.context(req).get();
+    if (write != null) {
+      write.setContent(ByteBuffer.wrap(content));
+    } else {
+      resp.getOutputStream().write(content);
+    }
+  }
 
-      // Capture news now in "body" mode, since findAllNews only did meta for fast search
-      // TODO: body: Is there a way to capture news at "body" level while other parts at "meta" level?
-      //       This recapturing is clunky and full body capture of all would be inefficient.
-      // TODO: Concurrency: Is limited concurrent capture possible here?
-      //       If concurrency at 16, for example, could we reasonably dispatch concurrent capturePageInBook
-      //       while serializing to write on the main thread?
-      String newsId = news.getId();
+  /**
+   * Completes the response while processing continues, so the client has the entire response.
+   * The request itself, and any container thread when not asynchronous, is held until processing is done.
+   */
+  private static void closeContent(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    NonBlockingWrite write = NON_BLOCKING_WRITE_IN_REQUEST_ATTRIBUTE.context(req).get();
+    if (write != null) {
+      write.startAndClose();
+    } else {
+      resp.getOutputStream().close();
+    }
+  }
+
+  /**
+   * Discards anything buffered and sets the headers of the feed content.
+   */
+  private static void setFeedHeaders(HttpServletResponse resp, FeedFormat format, boolean gzip, long contentLength) {
+    resp.resetBuffer();
+    resp.setContentType(format.getContentType());
+    resp.setCharacterEncoding(ENCODING.name());
+    if (gzip) {
+      resp.setHeader("Content-Encoding", GZIP);
+    }
+    resp.setContentLengthLong(contentLength);
+  }
+
+  private static final String GZIP = "gzip";
+
+  /**
+   * Checks if the request accepts the gzip content coding, which is when <code>Accept-Encoding</code> lists
+   * <code>gzip</code>, <code>x-gzip</code>, or <code>*</code> with a non-zero quality.
+   */
+  private static boolean acceptsGzip(HttpServletRequest req) {
+    String acceptEncoding = req.getHeader("Accept-Encoding");
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String name;
+      float quality = 1;
+      int semicolon = coding.indexOf(';');
+      if (semicolon == -1) {
+        name = coding.trim();
+      } else {
+        name = coding.substring(0, semicolon).trim();
+        for (String param : coding.substring(semicolon + 1).split(";")) {
+          param = param.trim();
+          if (param.startsWith("q=") || param.startsWith("Q=")) {
+            try {
+              quality = Float.parseFloat(param.substring(2).trim());
+            } catch (NumberFormatException e) {
+              quality = 0;
+            }
+          }
+        }
+      }
+      if (
+          quality > 0
+              && (
+                  GZIP.equalsIgnoreCase(name)
+                      || "x-gzip".equalsIgnoreCase(name)
+                      || "*".equals(name)
+              )
+      ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Renders the feed into its encoded bytes.
+   */
+  private byte[] renderFeed(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      Page page,
+      ChannelConfig config,
+      View view,
+      FeedArchive archive,
+      FeedFormat format,
+      String urlBase,
+      ItemCache itemCache,
+      PageRefCache pageRefCache,
+      RssMetrics metrics
+  ) throws ServletException, IOException {
+    final long startNanos = System.nanoTime();
+    // Items are only cached when URL encoding is shared
+    FeedWriter feedWriter = new FeedWriter(urlBase, resp, itemCache != null);
+    List<News> rssNews = archive.getNews();
+    FeedChannel.Entry[] entries = new FeedChannel.Entry[rssNews.size()];
+    long bodyCaptureNanos = buildEntries(
+        servletContext, req, resp, page, config, view, rssNews, format, urlBase, itemCache, pageRefCache, feedWriter, entries
+    );
+    // Hubs are only advertised when publish pings are sent
+    String hub = (webSubPublisher == null) ? null : config.getHub();
+    FeedChannel channel = buildChannel(
+        servletContext, req, resp, page, config, view, archive, format, feedWriter, hub, Arrays.asList(entries)
+    );
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (PrintWriter out = new PrintWriter(new OutputStreamWriter(buffer, ENCODING))) {
+      format.write(channel, out);
+    }
+    metrics.bodyCaptureTime.record(bodyCaptureNanos);
+    metrics.serializationTime.record(System.nanoTime() - startNanos - bodyCaptureNanos);
+    metrics.feedRendered(rssNews.size());
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Builds the format-neutral channel of the feed.
+   */
+  private static FeedChannel buildChannel(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      Page page,
+      ChannelConfig config,
+      View view,
+      FeedArchive archive,
+      FeedFormat format,
+      FeedWriter feedWriter,
+      String hub,
+      List<FeedChannel.Entry> entries
+  ) throws ServletException, IOException {
+    final List<News> rssNews = archive.getNews();
+    PageRef pageRef = page.getPageRef();
+    String channelLink = feedWriter.getUrl(
+        pageRef.getServletPath(),
+        view.isDefault() ? null : view.getName(),
+        null
+    );
+    // RFC 5005 paging and archiving, the cursors do not require encoding
+    String feedPath = format.getServletPath(page);
+    String archivePath = feedPath + '?' + FeedArchive.ARCHIVE_PARAM + '=';
+    Copyright copyright = view.getCopyright(servletContext, req, resp, page);
+    // image
+    String imagePath = config.getImagePath();
+    FeedChannel.Image image = (imagePath == null) ? null : new FeedChannel.Image(
+        feedWriter.getUrl(imagePath, null, null),
+        config.getImageWidth(),
+        config.getImageHeight(),
+        config.getImageDescription()
+    );
+    return new FeedChannel(
+        config,
+        view.getTitle(servletContext, req, resp, page),
+        channelLink,
+        feedWriter.getUrl(archive.getArchive() == null ? feedPath : (archivePath + archive.getArchive()), null, null),
+        hub,
+        view.getDescription(page),
+        (copyright != null && !copyright.isEmpty()) ? copyright.toString() : null,
+        // lastBuildDate is the most recent of the news items listed, which will have been sorted to the top of the news
+        rssNews.isEmpty() ? null : rssNews.get(0).getPubDate().toInstant(),
+        image,
+        archive.getArchive() != null,
+        archive.getArchive() == null ? null : feedWriter.getUrl(feedPath, null, null),
+        archive.getPrevArchive() == null ? null : feedWriter.getUrl(archivePath + archive.getPrevArchive(), null, null),
+        archive.getNextArchive() == null ? null : feedWriter.getUrl(archivePath + archive.getNextArchive(), null, null),
+        Collections.unmodifiableList(entries)
+    );
+  }
+
+  /**
+   * The source of the news from another page.
+   */
+  private static final class Source {
+
+    private final String url;
+    private final String title;
+
+    private Source(String url, String title) {
+      this.url = url;
+      this.title = title;
+    }
+  }
+
+  /**
+   * Builds the entries of the feed, using already built items when cached.
+   *
+   * @param  itemCache  the cache of items or {@code null} when the items may not be shared
+   * @param  entries  the array to fill, the same size as the news
+   *
+   * @return  the nanoseconds spent recapturing news pages in "body" mode
+   */
+  private static long buildEntries(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      Page page,
+      ChannelConfig config,
+      View view,
+      List<News> rssNews,
+      FeedFormat format,
+      String urlBase,
+      ItemCache itemCache,
+      PageRefCache pageRefCache,
+      FeedWriter feedWriter,
+      FeedChannel.Entry[] entries
+  ) throws ServletException, IOException {
+    final ItemContent itemContent = config.getItemContent();
+    final int truncateLength = config.getTruncateLength();
+    final int size = rssNews.size();
+    // Find the already built items
+    final ItemCache.Key[] itemKeys = new ItemCache.Key[size];
+    final long[] itemLastModifieds = new long[size];
+    final FeedItem[] items = new FeedItem[size];
+    if (itemCache != null) {
+      PageRef lastPageRef = null;
+      long lastModified = 0;
+      for (int i = 0; i < size; i++) {
+        News news = rssNews.get(i);
+        PageRef newsPageRef = news.getPage().getPageRef();
+        // News from the same page are typically adjacent
+        if (!newsPageRef.equals(lastPageRef)) {
+          lastModified = getResourceLastModified(servletContext, newsPageRef);
+          lastPageRef = newsPageRef;
+        }
+        ItemCache.Key itemKey = new ItemCache.Key(newsPageRef, news.getId(), urlBase, itemContent, truncateLength);
+        itemKeys[i] = itemKey;
+        itemLastModifieds[i] = lastModified;
+        items[i] = itemCache.get(itemKey, lastModified);
+      }
+    }
+    final int captureConcurrency = config.getCaptureConcurrency();
+    // The most recently recaptured window of news pages, in "body" mode
+    Map<PageRef, Page> bodyPages = Collections.emptyMap();
+    long bodyCaptureNanos = 0;
+    final Map<PageRef, Source> sources = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      News news = rssNews.get(i);
       Page newsPage = news.getPage();
-      PageRef newsPageRef = newsPage.getPageRef();
-      Element recaptured = CapturePage.capturePage(servletContext, req, resp, newsPageRef, CaptureLevel.BODY).getElementsById().get(newsId);
-      if (recaptured == null) {
-        throw new ServletException("recaptured failed: pageRef = " + newsPageRef + ", newsId = " + newsId);
-      }
-      if (!(recaptured instanceof News)) {
-        throw new ServletException("recaptured is not news: " + recaptured.getClass().getName());
-      }
-      BufferResult body = recaptured.getBody();
-      long bodyLen = body.getLength();
-
-      if (description != null || bodyLen > 0) {
-        out.print("            <description>\n");
-        // Since description in RSS 2.0 allows HTML, and this is a text-only description, this has to be doubly encoded
-        try (XhtmlWriter encoder = new TextWriter(EncodingContext.XML, textInXhtmlEncoder, out).xhtml()) {
-          if (description != null) {
-            encoder.append("                <div><em>").text(description).append("</em></div>\n");
+      FeedItem item = items[i];
+      if (item == null) {
+        News recaptured;
+        if (itemContent == ItemContent.DESCRIPTION) {
+          // The description is already captured in "meta" mode, no recapture required
+          recaptured = null;
+        } else {
+          // Capture news now in "body" mode, since findAllNews only did meta for fast search
+          // TODO: body: Is there a way to capture news at "body" level while other parts at "meta" level?
+          //       This recapturing is clunky and full body capture of all would be inefficient.
+          PageRef newsPageRef = newsPage.getPageRef();
+          Page bodyPage = bodyPages.get(newsPageRef);
+          if (bodyPage == null) {
+            final long captureStartNanos = System.nanoTime();
+            // Recapture the next window of distinct news pages, which may be concurrent, while still building in order here
+            if (captureConcurrency == 1) {
+              bodyPage = CapturePage.capturePage(servletContext, req, resp, newsPageRef, CaptureLevel.BODY);
+              bodyPages = Collections.singletonMap(newsPageRef, bodyPage);
+            } else {
+              Set<PageRef> window = new LinkedHashSet<>(Math.min(captureConcurrency, size - i) * 4 / 3 + 1);
+              for (int j = i; j < size && window.size() < captureConcurrency; j++) {
+                // Already built items are not recaptured
+                if (items[j] == null) {
+                  window.add(rssNews.get(j).getPage().getPageRef());
+                }
+              }
+              bodyPages = CapturePage.capturePages(servletContext, req, resp, window, CaptureLevel.BODY);
+              bodyPage = bodyPages.get(newsPageRef);
+              assert bodyPage != null : "The current news page is always the first in the window";
+            }
+            bodyCaptureNanos += System.nanoTime() - captureStartNanos;
           }
-          if (bodyLen > 0) {
-            encoder.append("                <div style=\"margin-top: 1em\">\n");
-            // TODO: Automatic absolute links on body content of news tags, resetting on capturing other pages, or do we just trust RSS to correctly do relative links?
-            // TODO: Register a LinkRenderer that forces absolute links
+          String newsId = news.getId();
+          Element recapturedElement = bodyPage.getElementsById().get(newsId);
+          if (recapturedElement == null) {
+            throw new ServletException("recaptured failed: pageRef = " + newsPageRef + ", newsId = " + newsId);
+          }
+          if (!(recapturedElement instanceof News)) {
+            throw new ServletException("recaptured is not news: " + recapturedElement.getClass().getName());
+          }
+          recaptured = (News) recapturedElement;
+        }
+        item = buildItem(servletContext, req, resp, news, recaptured, truncateLength, pageRefCache, feedWriter);
+        if (itemCache != null) {
+          itemCache.put(itemKeys[i], itemLastModifieds[i], item);
+        }
+      }
+      // source if from a different page
+      if (page.equals(newsPage)) {
+        entries[i] = new FeedChannel.Entry(item, null, null);
+      } else {
+        // News from the same page share one source
+        Source source = sources.get(newsPage.getPageRef());
+        if (source == null) {
+          source = new Source(
+              feedWriter.getUrl(format.getServletPath(newsPage), null, null),
+              view.getTitle(servletContext, req, resp, newsPage)
+          );
+          sources.put(newsPage.getPageRef(), source);
+        }
+        entries[i] = new FeedChannel.Entry(item, source.url, source.title);
+      }
+    }
+    return bodyCaptureNanos;
+  }
+
+  /**
+   * Builds the item of a news, which depends only on the news itself.
+   *
+   * @param  recaptured  the news recaptured in "body" mode, or {@code null} for only the description
+   * @param  truncateLength  the maximum number of text characters of the body, or {@code 0} for the entire body
+   */
+  private static FeedItem buildItem(
+      ServletContext servletContext,
+      HttpServletRequest req,
+      HttpServletResponse resp,
+      News news,
+      News recaptured,
+      int truncateLength,
+      PageRefCache pageRefCache,
+      FeedWriter feedWriter
+  ) throws ServletException, IOException {
+    PageRef targetPageRef = pageRefCache.getPageRef(
+        servletContext,
+        req,
+        news.getBook(),
+        news.getTargetPage()
+    );
+    String link = feedWriter.getUrl(
+        targetPageRef.getServletPath(),
+        news.getView().equals(SemanticCMS.DEFAULT_VIEW_NAME) ? null : news.getView(),
+        news.getElement()
+    );
+
+    String description = news.getDescription();
+    BufferResult body = (recaptured == null) ? null : recaptured.getBody();
+    long bodyLen = (body == null) ? 0 : body.getLength();
+
+    String contentXml;
+    if (description != null || bodyLen > 0) {
+      StringWriter contentOut = new StringWriter();
+      // Since the content is HTML, and this is a text-only description, this has to be doubly encoded
+      try (XhtmlWriter encoder = new TextWriter(EncodingContext.XML, textInXhtmlEncoder, contentOut).xhtml()) {
+        if (description != null) {
+          encoder.append("                <div><em>").text(description).append("</em></div>\n");
+        }
+        if (bodyLen > 0) {
+          encoder.append("                <div style=\"margin-top: 1em\">\n");
+          // TODO: Automatic absolute links on body content of news tags, resetting on capturing other pages, or do we just trust RSS to correctly do relative links?
+          // TODO: Register a LinkRenderer that forces absolute links
+          if (truncateLength == 0) {
             body.writeTo(
                 new NodeBodyWriter(
                     recaptured,
@@ -497,57 +2011,37 @@ public class RssServlet extends HttpServlet {
                     new ServletElementContext(servletContext, req, resp)
                 )
             );
-            encoder.append("                </div>\n");
+          } else {
+            // Cut outside of any tags, the remainder of the body is discarded as written
+            try (XhtmlTruncator truncator = new XhtmlTruncator(encoder, truncateLength)) {
+              body.writeTo(
+                  new NodeBodyWriter(
+                      recaptured,
+                      truncator,
+                      new ServletElementContext(servletContext, req, resp)
+                  )
+              );
+            }
           }
+          encoder.append("                </div>\n");
         }
-        out.print("            </description>\n");
-      }
-      // author possible here, but Author does not currently have email address
-      out.print("            <guid>");
-      String guidServletPath;
-      {
-        sb.setLength(0);
-        URIEncoder.encodeURI(newsPage.getPageRef().getServletPath(), sb);
-        sb.append('#');
-        URIEncoder.encodeURIComponent(news.getId(), sb);
-        guidServletPath = sb.toString();
-      }
-      URIEncoder.encodeURI(// Encode again to force RFC 3986 US-ASCII
-          resp.encodeURL(
-              HttpServletUtil.getAbsoluteURL(
-                  req,
-                  guidServletPath
-              )
-          ),
-          textInXhtmlEncoder,
-          out
-      );
-      out.print("</guid>\n"
-          + "            <pubDate>");
-      encodeTextInXhtml(news.getPubDate().toInstant().atZone(ZoneOffset.UTC).format(DateTimeFormatter.RFC_1123_DATE_TIME), out);
-      out.print("</pubDate>\n");
-      // source if from a different page
-      if (!page.equals(newsPage)) {
-        out.print("            <source url=\"");
-        URIEncoder.encodeURI(// Encode again to force RFC 3986 US-ASCII
-            resp.encodeURL(
-                HttpServletUtil.getAbsoluteURL(
-                    req,
-                    URIEncoder.encodeURI(
-                        RssUtils.getRssServletPath(newsPage)
-                    )
-                )
-            ),
-            textInXhtmlAttributeEncoder,
-            out
-        );
-        out.print("\">");
-        encodeTextInXhtml(view.getTitle(servletContext, req, resp, newsPage), out);
-        out.print("</source>\n");
       }
-      out.print("        </item>\n");
+      contentXml = contentOut.toString();
+    } else {
+      contentXml = null;
     }
-    out.print("    </channel>\n"
-        + "</rss>\n");
+    // author possible here, but Author does not currently have email address
+    return new FeedItem(
+        news.getTitle(),
+        link,
+        description,
+        contentXml,
+        feedWriter.getUrl(
+            news.getPage().getPageRef().getServletPath(),
+            null,
+            news.getId()
+        ),
+        news.getPubDate().toInstant()
+    );
   }
 }
@@ -0,0 +1,220 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.news.servlet.RssUtils;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optionally renders feeds in the background once the application is live, so the first readers after a deploy
+ * do not pay for cold captures of entire page trees.
+ *
+ * <p>Enabled by the context init parameter {@link #BASE_URL_INIT_PARAM}, along with
+ * {@link RssServlet#CANONICAL_BASE_INIT_PARAM} so the feeds are rendered with the same URLs, and into the same cache
+ * entries, as requested by readers.  Captures require a request, so {@link #CONCURRENCY_INIT_PARAM} concurrent
+ * requests are sent to {@link #WARM_UP_PATH}, with the {@link RssServlet#INTERNAL_TOKEN_HEADER internal token}.
+ * {@link RssServlet} hands each off to a bounded executor of low priority, without holding a container thread, where
+ * they share the feeds to render in-process: the feed of the content root of each book, along with any additional
+ * paths configured, then the feed of every page with news in their trees, found from the news index, each with all
+ * its archive pages.  These requests are not subject to admission control.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+@WebListener("Renders feeds in the background once the application is live.")
+public final class RssWarmUp implements ServletContextListener {
+
+  /**
+   * The context init parameter that enables warm-up, which is the absolute URL of the context root
+   * used to reach the application from itself, such as <code>http://localhost:8080/context</code>.
+   */
+  public static final String BASE_URL_INIT_PARAM = RssWarmUp.class.getName() + ".baseUrl";
+
+  /**
+   * The context init parameter of additional context-relative feed paths to warm up, separated by
+   * commas or whitespace.
+   */
+  public static final String PATHS_INIT_PARAM = RssWarmUp.class.getName() + ".paths";
+
+  /**
+   * The context init parameter of the number of feeds rendered at a time, which is the number of warm-up requests
+   * sent, along with the number of threads of the warm-up executor of {@link RssServlet}.
+   */
+  public static final String CONCURRENCY_INIT_PARAM = RssWarmUp.class.getName() + ".concurrency";
+
+  static final int DEFAULT_CONCURRENCY = 2;
+
+  /**
+   * The context-relative path of the request that starts the warm-up, handled by {@link RssServlet}.
+   */
+  static final String WARM_UP_PATH = "/" + RssWarmUp.class.getName() + ".warmUp" + RssUtils.EXTENSION;
+
+  /**
+   * The number of times to check if the application is live, one second apart.
+   */
+  private static final int MAX_LIVE_ATTEMPTS = 300;
+
+  private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+  private ServletContext servletContext;
+  private String baseUrl;
+  private int concurrency;
+  private HttpClient client;
+  private ExecutorService executor;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    servletContext = event.getServletContext();
+    String url = servletContext.getInitParameter(BASE_URL_INIT_PARAM);
+    if (url == null || (url = url.trim()).isEmpty()) {
+      return;
+    }
+    String canonicalBase = servletContext.getInitParameter(RssServlet.CANONICAL_BASE_INIT_PARAM);
+    if (canonicalBase == null || canonicalBase.trim().isEmpty()) {
+      servletContext.log("Feed warm-up disabled, requires " + RssServlet.CANONICAL_BASE_INIT_PARAM);
+      return;
+    }
+    while (url.endsWith("/")) {
+      url = url.substring(0, url.length() - 1);
+    }
+    int c;
+    try {
+      c = RssServlet.getIntInitParameter(servletContext, CONCURRENCY_INIT_PARAM, DEFAULT_CONCURRENCY);
+    } catch (ServletException e) {
+      servletContext.log("Feed warm-up disabled", e);
+      return;
+    }
+    if (c < 1) {
+      servletContext.log("Feed warm-up disabled, " + CONCURRENCY_INIT_PARAM + " may not be less than one: " + c);
+      return;
+    }
+    baseUrl = url;
+    concurrency = c;
+    executor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, RssWarmUp.class.getName());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.NORM_PRIORITY - 1);
+      return thread;
+    });
+    client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    executor.submit(this::start);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    ExecutorService e = executor;
+    if (e != null) {
+      e.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * Waits until the application is live, then sends the concurrent requests of the warm-up and waits for them.
+   */
+  private void start() {
+    if (!waitUntilLive()) {
+      servletContext.log("Feed warm-up skipped, application not reachable: " + baseUrl);
+      return;
+    }
+    // The servlet is loaded on startup, so has its token once the application is live
+    String token = RssServlet.INTERNAL_TOKEN_APPLICATION_ATTRIBUTE.context(servletContext).get();
+    if (token == null) {
+      servletContext.log("Feed warm-up skipped, " + RssServlet.class.getName() + " not initialized");
+      return;
+    }
+    // Not limited by time, since each request renders until no feeds remain
+    HttpRequest request;
+    try {
+      request = HttpRequest.newBuilder(URI.create(baseUrl + WARM_UP_PATH))
+          .header(RssServlet.INTERNAL_TOKEN_HEADER, token)
+          .POST(HttpRequest.BodyPublishers.noBody())
+          .build();
+    } catch (IllegalArgumentException e) {
+      servletContext.log("Feed warm-up failed", e);
+      return;
+    }
+    List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+    }
+    for (CompletableFuture<HttpResponse<Void>> response : responses) {
+      try {
+        int status = response.get().statusCode();
+        if (status != 204) {
+          servletContext.log("Feed warm-up failed: " + status);
+        }
+      } catch (ExecutionException e) {
+        servletContext.log("Feed warm-up failed", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        responses.forEach(r -> r.cancel(true));
+        return;
+      }
+    }
+  }
+
+  private boolean waitUntilLive() {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + '/'))
+        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+        .timeout(TIMEOUT)
+        .build();
+    for (int attempt = 0; attempt < MAX_LIVE_ATTEMPTS; attempt++) {
+      try {
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+        return true;
+      } catch (IOException e) {
+        // Not accepting connections yet
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      try {
+        Thread.sleep(1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return false;
+  }
+}
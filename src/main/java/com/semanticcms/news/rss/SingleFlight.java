@@ -0,0 +1,103 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls for the same key, so only one thread does the work while the others wait for and
+ * share its result.  Nothing is kept once the call completes.
+ *
+ * @author  AO Industries, Inc.
+ */
+final class SingleFlight<K, V> {
+
+  /**
+   * The work done by the first caller.
+   */
+  @FunctionalInterface
+  interface Call<V> {
+    V call() throws ServletException, IOException;
+  }
+
+  private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+  /**
+   * Performs the call, or waits for the result of the same call already in progress in another thread.
+   *
+   * @param  onShared  run when sharing the result of another thread, may be {@code null}
+   */
+  V execute(K key, Call<? extends V> call, Runnable onShared) throws ServletException, IOException {
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> existing = calls.putIfAbsent(key, future);
+    if (existing != null) {
+      if (onShared != null) {
+        onShared.run();
+      }
+      return await(existing);
+    }
+    try {
+      V result = call.call();
+      future.complete(result);
+      return result;
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+      throw t;
+    } finally {
+      calls.remove(key, future);
+    }
+  }
+
+  private static <V> V await(CompletableFuture<V> future) throws ServletException, IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(e);
+      throw ioErr;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ServletException) {
+        throw new ServletException(cause.getMessage(), cause);
+      }
+      if (cause instanceof IOException) {
+        throw new IOException(cause.getMessage(), cause);
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ServletException(cause);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory token buckets, one per key, for admission control of polls.
+ *
+ * <p>Each bucket holds up to a burst of tokens and is refilled at a constant rate.  When the maximum number of
+ * buckets is reached, the least-recently-used bucket is evicted, which at worst admits a poll that would have been
+ * turned away.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class TokenBuckets {
+
+  /**
+   * The default maximum number of buckets.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private static final class Bucket {
+
+    private double tokens;
+    private long refilledNanos;
+
+    private Bucket(double tokens, long refilledNanos) {
+      this.tokens = tokens;
+      this.refilledNanos = refilledNanos;
+    }
+  }
+
+  private final int maxEntries;
+  private final int burst;
+  private final double nanosPerToken;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<Object, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Object, Bucket> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  /**
+   * @param  burst          the number of tokens in a full bucket
+   * @param  nanosPerToken  the nanoseconds to refill one token
+   */
+  TokenBuckets(int maxEntries, int burst, double nanosPerToken) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries < 1: " + maxEntries);
+    }
+    if (burst < 1) {
+      throw new IllegalArgumentException("burst < 1: " + burst);
+    }
+    if (!(nanosPerToken > 0)) {
+      throw new IllegalArgumentException("nanosPerToken <= 0: " + nanosPerToken);
+    }
+    this.maxEntries = maxEntries;
+    this.burst = burst;
+    this.nanosPerToken = nanosPerToken;
+  }
+
+  /**
+   * Takes one token from the bucket of the given key, starting with a full bucket.
+   *
+   * @return  {@code 0} when a token was taken, otherwise the nanoseconds until a token will be available
+   */
+  long tryAcquire(Object key, long nowNanos) {
+    synchronized (buckets) {
+      Bucket bucket = buckets.get(key);
+      if (bucket == null) {
+        buckets.put(key, new Bucket(burst - 1d, nowNanos));
+        return 0;
+      }
+      bucket.tokens = Math.min(burst, bucket.tokens + (nowNanos - bucket.refilledNanos) / nanosPerToken);
+      bucket.refilledNanos = nowNanos;
+      if (bucket.tokens >= 1) {
+        bucket.tokens--;
+        return 0;
+      }
+      return Math.max(1, (long) Math.ceil((1 - bucket.tokens) * nanosPerToken));
+    }
+  }
+
+  /**
+   * Returns a token taken by {@link #tryAcquire(java.lang.Object, long)} that was not used, such as when the poll was
+   * turned away by another bucket.  Nothing is returned once the bucket has been evicted.
+   */
+  void release(Object key) {
+    synchronized (buckets) {
+      Bucket bucket = buckets.get(key);
+      if (bucket != null) {
+        bucket.tokens = Math.min(burst, bucket.tokens + 1);
+      }
+    }
+  }
+
+  /**
+   * Removes all buckets.
+   */
+  void clear() {
+    synchronized (buckets) {
+      buckets.clear();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.news.rss;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * The feeds of one warm-up, shared by its concurrent requests, each feed taken once.
+ *
+ * <p>A request waits for more feeds while any other request is still rendering, since each render may add the feeds
+ * of its pages.  The warm-up is finished once no feeds remain and none are being rendered.</p>
+ *
+ * @param  <T>  the type of each feed
+ *
+ * @author  AO Industries, Inc.
+ */
+final class WarmUpQueue<T> {
+
+  private final Queue<T> queue = new ArrayDeque<>();
+  private final Set<T> seen = new HashSet<>();
+  private int active;
+
+  /**
+   * Adds a feed, unless already added.
+   */
+  synchronized void add(T feed) {
+    if (seen.add(feed)) {
+      queue.add(feed);
+      notifyAll();
+    }
+  }
+
+  /**
+   * Takes the next feed to render, which must be followed by {@link #done()} once rendered.
+   *
+   * @return  the feed or {@code null} when the warm-up is finished
+   */
+  synchronized T take() throws InterruptedException {
+    while (queue.isEmpty()) {
+      if (active == 0) {
+        return null;
+      }
+      wait();
+    }
+    active++;
+    return queue.remove();
+  }
+
+  /**
+   * Indicates a feed taken is rendered, after adding any feeds it found.
+   */
+  synchronized void done() {
+    active--;
+    notifyAll();
+  }
+
+  /**
+   * Checks if the warm-up is finished, so a new request starts another.
+   */
+  synchronized boolean isFinished() {
+    return active == 0 && queue.isEmpty();
+  }
+}
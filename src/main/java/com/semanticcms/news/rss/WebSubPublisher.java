@@ -0,0 +1,369 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import com.semanticcms.core.model.PageRef;
+import jakarta.servlet.ServletContext;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends <a href="https://www.w3.org/TR/websub/">WebSub</a> publish pings to the hub of each book when the news of
+ * a page change, so subscribers fetch the feed once per change instead of polling.
+ *
+ * <p>The newest <code>pubDate</code> of each page is tracked as its current feed is looked up, along with every
+ * self URL its feeds have been served as, which are the WebSub topics.  When the newest <code>pubDate</code> of a
+ * page changes, all of its topics are queued.  Queued topics are sent in batches, one request per hub, and retried
+ * with exponential backoff.</p>
+ *
+ * <p>Only topics under the canonical base are tracked, limited per page, so the topics and the URLs requested do not
+ * depend on the <code>Host</code> of any request.</p>
+ *
+ * <p>Since the newest <code>pubDate</code> is only known when a feed is looked up, every tracked page is also
+ * checked periodically, in-process, against the modification times of the pages of its tree in the
+ * {@link NewsIndex}, which are also inputs of its {@link FeedETag}.  When any has changed, the topics of the page are
+ * queued once, so subscribers are notified even when no one polls, and the fetch of the hub finds the new news.
+ * Nothing is requested over HTTP other than the hubs.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class WebSubPublisher {
+
+  /**
+   * The default maximum number of pages tracked.
+   */
+  static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  /**
+   * The milliseconds topics are collected before sending a batch.
+   */
+  private static final long BATCH_DELAY = 1000;
+
+  /**
+   * The maximum number of topics in one publish request.
+   */
+  private static final int MAX_BATCH_SIZE = 100;
+
+  /**
+   * The number of times a topic is sent before giving up.
+   */
+  private static final int MAX_ATTEMPTS = 6;
+
+  /**
+   * The milliseconds before the first retry, doubled each attempt.
+   */
+  private static final long RETRY_DELAY = 5000;
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  /**
+   * The maximum number of topics tracked per page, which is more than one per format.
+   */
+  private static final int MAX_TOPICS_PER_PAGE = 8;
+
+  /**
+   * The topics of one page, by the hub each was served with.
+   */
+  private static final class Topics {
+
+    private long newest;
+    private final Map<String, String> hubs = new LinkedHashMap<>();
+
+    /**
+     * Whether the topics have been queued by a check since the last lookup, so are not queued again by the check,
+     * nor by the lookup that finds the change.
+     */
+    private boolean checked;
+
+    private Topics(long newest) {
+      this.newest = newest;
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final RssMetrics metrics;
+
+  /**
+   * The prefix of all topics, which is the canonical base with a trailing slash.
+   */
+  private final String topicPrefix;
+
+  private final NewsIndex newsIndex;
+  private final int maxEntries;
+  private final ScheduledThreadPoolExecutor executor;
+  private final HttpClient client;
+
+  /**
+   * Access-ordered for least-recently-used eviction.
+   */
+  private final Map<PageRef, Topics> pages = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<PageRef, Topics> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  /**
+   * The topics waiting to be sent, by hub, with the number of times each was already sent.
+   */
+  private final Map<String, Map<String, Integer>> pending = new HashMap<>();
+
+  private boolean sendScheduled;
+
+  /**
+   * @param  canonicalBase  the absolute URL base of all topics, without any trailing slash
+   * @param  newsIndex  the index of the news looked up, checked for modified pages
+   * @param  checkInterval  the seconds between checks of every tracked page, {@code 0} to disable
+   */
+  WebSubPublisher(
+      ServletContext servletContext,
+      RssMetrics metrics,
+      String canonicalBase,
+      NewsIndex newsIndex,
+      int maxEntries,
+      int checkInterval
+  ) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries < 1: " + maxEntries);
+    }
+    if (checkInterval < 0) {
+      throw new IllegalArgumentException("checkInterval < 0: " + checkInterval);
+    }
+    this.servletContext = servletContext;
+    this.metrics = metrics;
+    this.topicPrefix = canonicalBase + '/';
+    this.newsIndex = newsIndex;
+    this.maxEntries = maxEntries;
+    AtomicInteger threadNum = new AtomicInteger();
+    // One thread sends while another checks
+    executor = new ScheduledThreadPoolExecutor(2, r -> {
+      Thread thread = new Thread(r, WebSubPublisher.class.getName() + '-' + threadNum.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    if (checkInterval != 0) {
+      executor.scheduleWithFixedDelay(this::check, checkInterval, checkInterval, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Records the newest news of a page as its current feed is looked up, queuing all of its topics when changed.
+   *
+   * @param  hub  the hub of the book of the page
+   * @param  topic  the absolute self URL of the feed, ignored when not under the canonical base
+   * @param  newest  the newest <code>pubDate</code> of the news of the page and its children
+   */
+  void update(PageRef pageRef, String hub, String topic, long newest) {
+    if (!topic.startsWith(topicPrefix)) {
+      return;
+    }
+    Map<String, String> changed = null;
+    synchronized (pages) {
+      Topics topics = pages.get(pageRef);
+      if (topics == null) {
+        // Nothing to compare to until seen again
+        topics = new Topics(newest);
+        pages.put(pageRef, topics);
+      } else if (topics.newest != newest) {
+        topics.newest = newest;
+        // Already sent when noticed by a check
+        if (!topics.checked) {
+          changed = topics.hubs;
+        }
+      }
+      topics.checked = false;
+      if (topics.hubs.containsKey(topic) || topics.hubs.size() < MAX_TOPICS_PER_PAGE) {
+        topics.hubs.put(topic, hub);
+      }
+      if (changed != null) {
+        changed = new HashMap<>(changed);
+      }
+    }
+    if (changed != null) {
+      for (Map.Entry<String, String> entry : changed.entrySet()) {
+        enqueue(entry.getValue(), entry.getKey(), 0);
+      }
+    }
+  }
+
+  /**
+   * Queues one topic, scheduling a batch when none is scheduled.
+   *
+   * @param  attempts  the number of times the topic was already sent
+   */
+  private void enqueue(String hub, String topic, int attempts) {
+    synchronized (pending) {
+      pending.computeIfAbsent(hub, h -> new LinkedHashMap<>()).putIfAbsent(topic, attempts);
+      if (!sendScheduled) {
+        try {
+          executor.schedule(this::send, BATCH_DELAY, TimeUnit.MILLISECONDS);
+          sendScheduled = true;
+        } catch (RejectedExecutionException e) {
+          // Shutting down
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends all queued topics, retrying those that fail.
+   */
+  private void send() {
+    Map<String, Map<String, Integer>> batch;
+    synchronized (pending) {
+      batch = new HashMap<>(pending);
+      pending.clear();
+      sendScheduled = false;
+    }
+    for (Map.Entry<String, Map<String, Integer>> entry : batch.entrySet()) {
+      String hub = entry.getKey();
+      List<Map.Entry<String, Integer>> topics = new ArrayList<>(entry.getValue().entrySet());
+      for (int from = 0; from < topics.size(); from += MAX_BATCH_SIZE) {
+        List<Map.Entry<String, Integer>> part = topics.subList(from, Math.min(from + MAX_BATCH_SIZE, topics.size()));
+        if (publish(hub, part)) {
+          metrics.webSubPublished.add(part.size());
+        } else {
+          for (Map.Entry<String, Integer> topic : part) {
+            retry(hub, topic.getKey(), topic.getValue() + 1);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends one publish request for the given topics.
+   *
+   * @return  {@code true} when accepted by the hub
+   */
+  private boolean publish(String hub, List<Map.Entry<String, Integer>> topics) {
+    StringBuilder form = new StringBuilder("hub.mode=publish");
+    for (Map.Entry<String, Integer> topic : topics) {
+      form.append("&hub.url=").append(URLEncoder.encode(topic.getKey(), StandardCharsets.UTF_8));
+    }
+    try {
+      HttpResponse<Void> response = client.send(
+          HttpRequest.newBuilder(URI.create(hub))
+              .timeout(TIMEOUT)
+              .header("Content-Type", "application/x-www-form-urlencoded")
+              .POST(HttpRequest.BodyPublishers.ofString(form.toString(), StandardCharsets.US_ASCII))
+              .build(),
+          HttpResponse.BodyHandlers.discarding()
+      );
+      int status = response.statusCode();
+      if (status >= 200 && status < 300) {
+        return true;
+      }
+      servletContext.log("WebSub publish rejected by " + hub + ": " + status);
+    } catch (IOException | IllegalArgumentException e) {
+      servletContext.log("WebSub publish failed: " + hub, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  /**
+   * Queues a topic again after a delay that doubles each attempt, giving up after {@link #MAX_ATTEMPTS}.
+   */
+  private void retry(String hub, String topic, int attempts) {
+    if (attempts >= MAX_ATTEMPTS) {
+      metrics.webSubFailed.increment();
+      servletContext.log("WebSub publish abandoned after " + attempts + " attempts: " + topic);
+      return;
+    }
+    try {
+      executor.schedule(() -> enqueue(hub, topic, attempts), RETRY_DELAY << (attempts - 1), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // Shutting down
+    }
+  }
+
+  /**
+   * Checks every tracked page for pages modified in its tree, in-process and without capturing any page, queuing
+   * the topics of each modified page once until its feed is looked up again.
+   */
+  private void check() {
+    List<PageRef> pageRefs;
+    synchronized (pages) {
+      pageRefs = new ArrayList<>(pages.keySet());
+    }
+    for (PageRef pageRef : pageRefs) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      if (newsIndex.isModified(servletContext, pageRef)) {
+        Map<String, String> changed = null;
+        synchronized (pages) {
+          Topics topics = pages.get(pageRef);
+          if (topics != null && !topics.checked) {
+            topics.checked = true;
+            changed = new HashMap<>(topics.hubs);
+          }
+        }
+        if (changed != null) {
+          for (Map.Entry<String, String> entry : changed.entrySet()) {
+            enqueue(entry.getValue(), entry.getKey(), 0);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops sending and checking, discarding all queued topics.
+   */
+  void shutdown() {
+    executor.shutdownNow();
+    synchronized (pages) {
+      pages.clear();
+    }
+    synchronized (pending) {
+      pending.clear();
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * semanticcms-news-rss - RSS feeds for SemanticCMS newsfeeds.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-news-rss.
+ *
+ * semanticcms-news-rss is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-news-rss is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-news-rss.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.news.rss;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Passes through the beginning of well-formed XHTML, up to a maximum number of text characters, then closes any
+ * elements still open.  Text is only cut between characters, and never within a tag, comment, or entity, so the
+ * result remains well-formed.
+ *
+ * <p>Everything after the limit is discarded as it is written, so the remainder of a body is never buffered or
+ * encoded.</p>
+ *
+ * <p>Instances are not thread-safe and are used for a single body.</p>
+ *
+ * @author  AO Industries, Inc.
+ */
+final class XhtmlTruncator extends Writer {
+
+  /**
+   * Appended when truncated, before closing the open elements.
+   */
+  private static final char ELLIPSIS = '\u2026';
+
+  private enum State {
+    TEXT,
+    ENTITY,
+    TAG_OPEN,
+    TAG_NAME,
+    TAG,
+    ATTRIBUTE_VALUE,
+    DECLARATION
+  }
+
+  /**
+   * The maximum number of characters kept of the start of a declaration, enough for <code>![CDATA[</code>.
+   */
+  private static final int DECLARATION_START_LENGTH = 8;
+
+  private final Writer out;
+  private final int maxLength;
+
+  /**
+   * The names of the open elements, with the innermost first.
+   */
+  private final Deque<String> openElements = new ArrayDeque<>();
+
+  private final StringBuilder tagName = new StringBuilder();
+  private final StringBuilder declarationStart = new StringBuilder(DECLARATION_START_LENGTH);
+
+  private State state = State.TEXT;
+  private boolean closingTag;
+  private char quote;
+  private char previous;
+  private char beforePrevious;
+  private int length;
+  private boolean truncated;
+  private boolean finished;
+
+  /**
+   * @param  out  the writer of the truncated XHTML, which is not closed by {@link #close()}
+   * @param  maxLength  the maximum number of text characters, with each entity counted as one character
+   */
+  XhtmlTruncator(Writer out, int maxLength) {
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("maxLength < 0: " + maxLength);
+    }
+    this.out = out;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Checks if the XHTML has been truncated so far.
+   */
+  boolean isTruncated() {
+    return truncated;
+  }
+
+  /**
+   * Tracks the state for the next character.
+   *
+   * @return  {@code true} when the character is written, or {@code false} when truncated at this character
+   */
+  private boolean accept(char c) {
+    switch (state) {
+      case TEXT:
+        if (c == '<') {
+          state = State.TAG_OPEN;
+        } else if (Character.isLowSurrogate(c)) {
+          // Never separated from its high surrogate, already counted
+        } else if (length >= maxLength) {
+          if (Character.isWhitespace(c)) {
+            // Only truncated when more text follows, not for the whitespace between the closing tags
+            break;
+          }
+          truncated = true;
+          return false;
+        } else if (c == '&') {
+          state = State.ENTITY;
+        } else {
+          length++;
+        }
+        break;
+      case ENTITY:
+        if (c == ';') {
+          length++;
+          state = State.TEXT;
+        }
+        break;
+      case TAG_OPEN:
+        if (c == '/') {
+          closingTag = true;
+          state = State.TAG_NAME;
+        } else if (c == '!' || c == '?') {
+          declarationStart.setLength(0);
+          declarationStart.append(c);
+          state = State.DECLARATION;
+        } else {
+          tagName.append(c);
+          state = State.TAG_NAME;
+        }
+        break;
+      case TAG_NAME:
+        if (c == '>' || c == '/' || Character.isWhitespace(c)) {
+          state = State.TAG;
+          return accept(c);
+        }
+        tagName.append(c);
+        break;
+      case TAG:
+        if (c == '"' || c == '\'') {
+          quote = c;
+          state = State.ATTRIBUTE_VALUE;
+        } else if (c == '>') {
+          if (closingTag) {
+            openElements.poll();
+          } else if (previous != '/') {
+            openElements.push(tagName.toString());
+          }
+          tagName.setLength(0);
+          closingTag = false;
+          state = State.TEXT;
+        }
+        break;
+      case ATTRIBUTE_VALUE:
+        if (c == quote) {
+          state = State.TAG;
+        }
+        break;
+      case DECLARATION:
+        if (c == '>') {
+          String start = declarationStart.toString();
+          if (
+              // Comments end with "-->"
+              !(start.startsWith("!--") && (beforePrevious != '-' || previous != '-'))
+                  // CDATA sections end with "]]>"
+                  && !(start.startsWith("![CDATA[") && (beforePrevious != ']' || previous != ']'))
+          ) {
+            state = State.TEXT;
+          }
+        } else if (declarationStart.length() < DECLARATION_START_LENGTH) {
+          declarationStart.append(c);
+        }
+        break;
+      default:
+        throw new AssertionError();
+    }
+    beforePrevious = previous;
+    previous = c;
+    return true;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    if (!truncated && accept((char) c)) {
+      out.write(c);
+    }
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    if (truncated) {
+      return;
+    }
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      if (!accept(cbuf[i])) {
+        out.write(cbuf, off, i - off);
+        return;
+      }
+    }
+    out.write(cbuf, off, len);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    if (truncated) {
+      return;
+    }
+    int end = off + len;
+    for (int i = off; i < end; i++) {
+      if (!accept(str.charAt(i))) {
+        out.write(str, off, i - off);
+        return;
+      }
+    }
+    out.write(str, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * When truncated, writes the ellipsis and closes the open elements.
+   * Does not close the wrapped writer.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!finished) {
+      finished = true;
+      if (truncated) {
+        out.write(ELLIPSIS);
+        String element;
+        while ((element = openElements.poll()) != null) {
+          out.write("</");
+          out.write(element);
+          out.write('>');
+        }
+      }
+      out.flush();
+    }
+  }
+}